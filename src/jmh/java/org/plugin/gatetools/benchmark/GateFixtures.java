@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.benchmark;
+
+import org.plugin.gatetools.model.Gate;
+import org.plugin.gatetools.model.Location3D;
+import org.plugin.gatetools.spatial.Range3D;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试用传送门数据生成器
+ *
+ * 传送门以世界原点为中心分布，分布区域随数量增大以保持大致恒定的密度，
+ * 模拟传送门集中在出生点附近的真实场景。
+ *
+ * @author NSrank, Augment
+ */
+final class GateFixtures {
+    static final String WORLD_NAME = "world";
+
+    private GateFixtures() {
+    }
+
+    /**
+     * 生成传送门
+     *
+     * @param count 数量
+     * @param distribution 尺寸分布: small（1~3格）, large（8~32格）, mixed（90%小型 + 10%大型）
+     * @param seed 随机种子
+     */
+    static List<Gate> createGates(int count, String distribution, long seed) {
+        Random random = new Random(seed);
+        int spread = Math.max(64, (int) Math.sqrt(count) * 64);
+        List<Gate> gates = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(spread * 2) - spread;
+            int y = 60 + random.nextInt(40);
+            int z = random.nextInt(spread * 2) - spread;
+
+            boolean large = "large".equals(distribution) ||
+                ("mixed".equals(distribution) && random.nextInt(10) == 0);
+            int sizeX = large ? 8 + random.nextInt(25) : 1 + random.nextInt(3);
+            int sizeY = large ? 4 + random.nextInt(13) : 2 + random.nextInt(2);
+            int sizeZ = large ? 8 + random.nextInt(25) : 1 + random.nextInt(3);
+
+            Location3D corner1 = new Location3D(WORLD_NAME, x, y, z);
+            Location3D corner2 = new Location3D(WORLD_NAME, x + sizeX - 1, y + sizeY - 1, z + sizeZ - 1);
+            gates.add(new Gate("gate" + i, "Gate " + i, corner1, corner2));
+        }
+        return gates;
+    }
+
+    /**
+     * 获取传送门的方块范围
+     */
+    static Range3D rangeOf(Gate gate) {
+        return new Range3D(
+            (int) Math.min(gate.getCorner1().getX(), gate.getCorner2().getX()),
+            (int) Math.min(gate.getCorner1().getY(), gate.getCorner2().getY()),
+            (int) Math.min(gate.getCorner1().getZ(), gate.getCorner2().getZ()),
+            (int) Math.max(gate.getCorner1().getX(), gate.getCorner2().getX()),
+            (int) Math.max(gate.getCorner1().getY(), gate.getCorner2().getY()),
+            (int) Math.max(gate.getCorner1().getZ(), gate.getCorner2().getZ())
+        );
+    }
+
+    /**
+     * 生成查询坐标，约一半命中传送门，其余随机落在分布区域内
+     *
+     * @return 按 x, y, z 交错排列的坐标数组
+     */
+    static int[] createQueries(List<Gate> gates, int queryCount, long seed) {
+        Random random = new Random(seed);
+        int spread = Math.max(64, (int) Math.sqrt(gates.size()) * 64);
+        int[] queries = new int[queryCount * 3];
+
+        for (int i = 0; i < queryCount; i++) {
+            if (i % 2 == 0) {
+                Range3D range = rangeOf(gates.get(random.nextInt(gates.size())));
+                queries[i * 3] = range.getMinX();
+                queries[i * 3 + 1] = range.getMinY();
+                queries[i * 3 + 2] = range.getMinZ();
+            } else {
+                queries[i * 3] = random.nextInt(spread * 2) - spread;
+                queries[i * 3 + 1] = 60 + random.nextInt(40);
+                queries[i * 3 + 2] = random.nextInt(spread * 2) - spread;
+            }
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.plugin.gatetools.spatial.LeafScan;
+import org.plugin.gatetools.spatial.LeafScanner;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 叶子扫描基准测试
+ *
+ * 对比标量循环与向量化（jdk.incubator.vector）实现在不同叶子大小下的耗时，
+ * 用于确定 spatial.vector-scan-min-items 的分界点。需要同时启用 vector 构建配置，默认的 jmh.args 不运行本测试：
+ * mvn -Pbenchmark,vector test-compile exec:exec -Djmh.args="LeafScanBenchmark"
+ * miss 表示查询点落在叶子内但不在任何范围中（需要扫描全部范围），middle 表示命中位于中间的范围。
+ *
+ * @author NSrank, Augment
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class LeafScanBenchmark {
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"8", "16", "32", "64", "128", "256"})
+    public int leafSize;
+
+    @Param({"miss", "middle"})
+    public String outcome;
+
+    private LeafScanner scalar;
+    private LeafScanner vector;
+    private int[] minX, minY, minZ, maxX, maxY, maxZ;
+    private int[] queries;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        scalar = LeafScan.scalar();
+        vector = LeafScan.vector();
+        if (vector == null) {
+            throw new IllegalStateException("jdk.incubator.vector is not available in this JVM");
+        }
+
+        // 范围沿X轴排列，相邻范围之间留有1格空隙
+        minX = new int[leafSize];
+        minY = new int[leafSize];
+        minZ = new int[leafSize];
+        maxX = new int[leafSize];
+        maxY = new int[leafSize];
+        maxZ = new int[leafSize];
+        for (int i = 0; i < leafSize; i++) {
+            minX[i] = i * 4;
+            maxX[i] = i * 4 + 2;
+            minY[i] = 64;
+            maxY[i] = 67;
+            minZ[i] = 0;
+            maxZ[i] = 3;
+        }
+
+        Random random = new Random(42);
+        queries = new int[QUERY_COUNT * 3];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            int box = outcome.equals("middle") ? leafSize / 2 : random.nextInt(leafSize);
+            queries[i * 3] = outcome.equals("middle") ? box * 4 + 1 : box * 4 + 3;
+            queries[i * 3 + 1] = 64 + random.nextInt(4);
+            queries[i * 3 + 2] = random.nextInt(4);
+        }
+    }
+
+    private int next() {
+        int index = cursor;
+        cursor = (cursor + 3) % queries.length;
+        return index;
+    }
+
+    @Benchmark
+    public int scalarScan() {
+        int i = next();
+        return scalar.firstContaining(minX, minY, minZ, maxX, maxY, maxZ, 0, leafSize,
+            queries[i], queries[i + 1], queries[i + 2]);
+    }
+
+    @Benchmark
+    public int vectorScan() {
+        int i = next();
+        return vector.firstContaining(minX, minY, minZ, maxX, maxY, maxZ, 0, leafSize,
+            queries[i], queries[i + 1], queries[i + 2]);
+    }
+}
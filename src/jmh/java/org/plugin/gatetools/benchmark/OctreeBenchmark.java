@@ -0,0 +1,155 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.plugin.gatetools.model.Gate;
+import org.plugin.gatetools.spatial.Octree;
+import org.plugin.gatetools.spatial.Point3D;
+import org.plugin.gatetools.spatial.Range3D;
+import org.plugin.gatetools.spatial.SpatialIndexManager;
+import org.plugin.gatetools.spatial.SpatialIndexSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 八叉树基准测试
+ *
+ * 覆盖 insert/remove/firstRange/queryRanges/queryIntersecting 以及整树构建（逐个插入与批量构建），
+ * 按传送门数量和尺寸分布参数化。
+ *
+ * @author NSrank, Augment
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OctreeBenchmark {
+    private static final int QUERY_COUNT = 4096;
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int gateCount;
+
+    @Param({"small", "mixed", "large"})
+    public String distribution;
+
+    private List<Gate> gates;
+    private List<Range3D> ranges;
+    private Range3D rootBounds;
+    private Octree octree;
+    private int[] queries;
+    private int cursor;
+    private Range3D extraRange;
+
+    private final List<Range3D> sink = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        gates = GateFixtures.createGates(gateCount, distribution, 42);
+        ranges = new ArrayList<>(gates.size());
+        for (Gate gate : gates) {
+            ranges.add(GateFixtures.rangeOf(gate));
+        }
+        rootBounds = SpatialIndexManager.computeRootBounds(ranges, 0);
+        octree = buildOctree();
+        queries = GateFixtures.createQueries(gates, QUERY_COUNT, 7);
+        extraRange = new Range3D(1, 70, 1, 3, 72, 3);
+    }
+
+    private Octree buildOctree() {
+        Octree tree = new Octree(rootBounds, SpatialIndexSettings.DEFAULT_MAX_DEPTH, SpatialIndexSettings.DEFAULT_LEAF_CAPACITY);
+        for (int i = 0; i < ranges.size(); i++) {
+            tree.insert(ranges.get(i), gates.get(i));
+        }
+        return tree;
+    }
+
+    private int next() {
+        int index = cursor;
+        cursor = (cursor + 3) % queries.length;
+        return index;
+    }
+
+    @Benchmark
+    public Octree build() {
+        return buildOctree();
+    }
+
+    @Benchmark
+    public Octree bulkBuild() {
+        return Octree.build(rootBounds, SpatialIndexSettings.DEFAULT_MAX_DEPTH, SpatialIndexSettings.DEFAULT_LEAF_CAPACITY,
+            ranges, gates);
+    }
+
+    @Benchmark
+    public boolean insertAndRemove() {
+        octree.insert(extraRange, extraRange);
+        return octree.remove(extraRange);
+    }
+
+    @Benchmark
+    public Range3D firstRange() {
+        int i = next();
+        return octree.firstRange(queries[i], queries[i + 1], queries[i + 2]);
+    }
+
+    @Benchmark
+    public List<Range3D> queryRangesAllocating() {
+        int i = next();
+        return octree.queryRanges(new Point3D(queries[i], queries[i + 1], queries[i + 2]));
+    }
+
+    @Benchmark
+    public void queryRangesSink(Blackhole blackhole) {
+        int i = next();
+        sink.clear();
+        octree.queryRanges(queries[i], queries[i + 1], queries[i + 2], sink);
+        blackhole.consume(sink.size());
+    }
+
+    @Benchmark
+    public List<Range3D> queryIntersecting() {
+        int i = next();
+        int x = queries[i];
+        int y = queries[i + 1];
+        int z = queries[i + 2];
+        return octree.queryIntersecting(new Range3D(x - 8, y - 8, z - 8, x + 8, y + 8, z + 8));
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.benchmark;
+
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.plugin.gatetools.listener.BenchmarkPositionCache;
+import org.plugin.gatetools.manager.PlayerGateTracker;
+import org.plugin.gatetools.model.Gate;
+import org.plugin.gatetools.spatial.Range3D;
+import org.plugin.gatetools.spatial.Segment3D;
+import org.plugin.gatetools.spatial.SpatialIndexManager;
+import org.plugin.gatetools.spatial.SpatialIndexSettings;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * 玩家移动处理模拟基准测试
+ *
+ * 每次调用模拟一个 tick：M 名玩家各自沿 X 轴往返移动 step 格，穿过附近的传送门。
+ * trackedIndexQuery 对每名玩家执行与 PlayerMovementListener.onPlayerMove 相同的调用：
+ * 按World对象解析世界编号、区块快速排除、经PlayerPositionCache的终点查询、
+ * 一次跨越多个方块时的路径查询，以及会话表的进入/离开/穿过检测（权限检查除外，它需要真实的玩家对象）。
+ * legacyFullScan 复现旧实现（每次移动分配结果列表并遍历全部传送门的玩家集合），作为对照。
+ *
+ * @author NSrank, Augment
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerMoveBenchmark {
+    /** 玩家往返移动的半径（步） */
+    private static final int WALK_RADIUS = 8;
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int gateCount;
+
+    @Param({"small", "mixed", "large"})
+    public String distribution;
+
+    @Param({"20", "200"})
+    public int playerCount;
+
+    /** 每个 tick 移动的格数，大于1时走路径查询（模拟鞘翅、矿车等高速移动） */
+    @Param({"1", "3"})
+    public int step;
+
+    private List<Gate> gates;
+    private World world;
+    private SpatialIndexManager manager;
+    private PlayerGateTracker tracker;
+    private BenchmarkPositionCache positionCache;
+    // 旧实现中每个传送门各自保存的玩家集合
+    private Map<Gate, Set<UUID>> legacyPlayersInside;
+
+    private UUID[] playerIds;
+    private int[] originX;
+    private int[] originY;
+    private int[] originZ;
+    private int tick;
+
+    private final List<Gate> currentGates = new ArrayList<>();
+    private final List<Gate> enteredGates = new ArrayList<>();
+    private final List<Gate> leftGates = new ArrayList<>();
+    private final List<Gate> crossedGates = new ArrayList<>();
+    private final Segment3D sweepSegment = new Segment3D(0, 0, 0, 0, 0, 0);
+
+    @Setup
+    public void setup() {
+        SpatialIndexSettings settings = new SpatialIndexSettings(SpatialIndexManager.Backend.OCTREE, true,
+            SpatialIndexSettings.DEFAULT_MAX_DEPTH, SpatialIndexSettings.DEFAULT_LEAF_CAPACITY, false);
+        manager = new SpatialIndexManager(Logger.getLogger("GateToolsBenchmark"), () -> settings);
+        tracker = new PlayerGateTracker();
+        positionCache = new BenchmarkPositionCache();
+
+        // 与插件启用时相同，先登记已加载的世界，查询时按对象身份解析编号
+        world = createWorld(GateFixtures.WORLD_NAME);
+        manager.loadWorld(world);
+
+        gates = GateFixtures.createGates(gateCount, distribution, 42);
+        manager.rebuildIndex(gates);
+
+        legacyPlayersInside = new HashMap<>();
+        for (Gate gate : gates) {
+            legacyPlayersInside.put(gate, new HashSet<>());
+        }
+
+        // 每名玩家以某个传送门为中心往返移动，保证路径会穿过传送门
+        // 步长大于1时起点按玩家错开，部分玩家会一步跨过较薄的传送门而不停在其中
+        Random random = new Random(7);
+        playerIds = new UUID[playerCount];
+        originX = new int[playerCount];
+        originY = new int[playerCount];
+        originZ = new int[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            Range3D range = GateFixtures.rangeOf(gates.get(random.nextInt(gates.size())));
+            playerIds[i] = new UUID(random.nextLong(), random.nextLong());
+            originX[i] = range.getMinX() - i % step;
+            originY[i] = range.getMinY();
+            originZ[i] = range.getMinZ();
+        }
+    }
+
+    /**
+     * 创建只实现getName的World代理，SpatialIndexManager只通过名称和对象身份使用World
+     */
+    private static World createWorld(String name) {
+        return (World) Proxy.newProxyInstance(World.class.getClassLoader(), new Class<?>[] {World.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getName":
+                        return name;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                }
+            });
+    }
+
+    private int positionX(int player, int atTick) {
+        // 三角波：在 [-WALK_RADIUS, WALK_RADIUS] 步之间往返，不同玩家相位错开
+        int phase = (atTick + player) % (WALK_RADIUS * 4);
+        int offset = phase < WALK_RADIUS * 2 ? phase - WALK_RADIUS : WALK_RADIUS * 3 - phase;
+        return originX[player] + offset * step;
+    }
+
+    @Benchmark
+    public int trackedIndexQuery() {
+        tick++;
+        int transitions = 0;
+        for (int p = 0; p < playerCount; p++) {
+            int fromX = positionX(p, tick - 1);
+            int toX = positionX(p, tick);
+            // 只在玩家实际移动到其他方块时检查
+            if (fromX == toX) {
+                continue;
+            }
+            transitions += onPlayerMove(playerIds[p], fromX, toX, originY[p], originZ[p]);
+        }
+        return transitions;
+    }
+
+    /**
+     * 与 PlayerMovementListener.onPlayerMove 相同的查询与检测（玩家只沿X轴移动）
+     *
+     * @return 进入、离开和穿过的传送门数量
+     */
+    private int onPlayerMove(UUID playerId, int fromX, int toX, int y, int z) {
+        int worldId = manager.getWorldId(world);
+        currentGates.clear();
+        if (Math.abs(toX - fromX) <= 1) {
+            if (manager.hasGatesInChunk(worldId, toX >> 4, z >> 4)) {
+                queryCached(playerId, worldId, toX, y, z, currentGates);
+            }
+            return updateTracker(playerId);
+        }
+
+        crossedGates.clear();
+        if (manager.hasGatesInChunks(worldId, Math.min(fromX, toX) >> 4, z >> 4, Math.max(fromX, toX) >> 4, z >> 4)) {
+            if (manager.hasGatesInChunk(worldId, toX >> 4, z >> 4)) {
+                queryCached(playerId, worldId, toX, y, z, currentGates);
+            }
+            manager.querySwept(worldId,
+                sweepSegment.set(fromX + 0.5, y + 0.5, z + 0.5, toX + 0.5, y + 0.5, z + 0.5), crossedGates);
+        }
+        List<Gate> previousGates = tracker.getGates(playerId);
+        int transitions = updateTracker(playerId);
+        for (int i = 0; i < crossedGates.size(); i++) {
+            Gate gate = crossedGates.get(i);
+            if (!currentGates.contains(gate) && !previousGates.contains(gate)) {
+                transitions++;
+            }
+        }
+        return transitions;
+    }
+
+    /**
+     * 与 PlayerMovementListener.queryGates 相同：最近查询过的方块直接使用缓存的结果
+     */
+    private void queryCached(UUID playerId, int worldId, int x, int y, int z, List<Gate> result) {
+        long generation = manager.getGeneration();
+        long blockKey = BenchmarkPositionCache.blockKey(x, y, z);
+        List<Gate> cached = positionCache.get(playerId, worldId, blockKey, generation);
+        if (cached != null) {
+            for (int i = 0; i < cached.size(); i++) {
+                result.add(cached.get(i));
+            }
+            return;
+        }
+
+        int start = result.size();
+        manager.query(worldId, x, y, z, result);
+        positionCache.put(playerId, worldId, blockKey, generation, result.subList(start, result.size()));
+    }
+
+    private int updateTracker(UUID playerId) {
+        enteredGates.clear();
+        leftGates.clear();
+        if (!tracker.update(playerId, currentGates, enteredGates, leftGates)) {
+            return 0;
+        }
+        return enteredGates.size() + leftGates.size();
+    }
+
+    @Benchmark
+    public int legacyFullScan() {
+        tick++;
+        int transitions = 0;
+        for (int p = 0; p < playerCount; p++) {
+            int toX = positionX(p, tick);
+            if (positionX(p, tick - 1) == toX) {
+                continue;
+            }
+            UUID playerId = playerIds[p];
+            List<Gate> current = new ArrayList<>();
+            manager.query(GateFixtures.WORLD_NAME, toX, originY[p], originZ[p], current);
+
+            for (Gate gate : gates) {
+                Set<UUID> playersInside = legacyPlayersInside.get(gate);
+                boolean wasInside = playersInside.contains(playerId);
+                boolean isInside = current.contains(gate);
+                if (!wasInside && isInside) {
+                    playersInside.add(playerId);
+                    transitions++;
+                } else if (wasInside && !isInside) {
+                    playersInside.remove(playerId);
+                    transitions++;
+                }
+            }
+        }
+        return transitions;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.plugin.gatetools.spatial.ChunkGateGrid;
+import org.plugin.gatetools.spatial.Octree;
+import org.plugin.gatetools.spatial.OctreeSnapshot;
+import org.plugin.gatetools.spatial.Point3D;
+import org.plugin.gatetools.spatial.Range3D;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 点查询分配基准测试
+ *
+ * 对比旧的分配式查询（Point3D + 每层新建列表）与调用方提供缓冲区的查询。
+ * 八叉树的queryRanges会为命中的项目创建Range3D；快照和区块网格的数据查询不分配对象。
+ * 使用 -prof gc 运行，关注 gc.alloc.rate.norm（每次操作分配的字节数）。
+ *
+ * @author NSrank, Augment
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PointQueryAllocationBenchmark {
+    private static final int QUERY_COUNT = 1024;
+
+    @Param({"1000"})
+    public int gateCount;
+
+    private Octree octree;
+    private OctreeSnapshot snapshot;
+    private ChunkGateGrid grid;
+    private int[] queries;
+    private int cursor;
+
+    private final List<Range3D> rangeSink = new ArrayList<>();
+    private final List<Object> dataSink = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        octree = new Octree(new Range3D(-60000000, -256, -60000000, 60000000, 320, 60000000), 10, 10);
+        List<Range3D> ranges = new ArrayList<>();
+        List<Object> data = new ArrayList<>();
+
+        for (int i = 0; i < gateCount; i++) {
+            int x = random.nextInt(200000) - 100000;
+            int y = random.nextInt(200);
+            int z = random.nextInt(200000) - 100000;
+            Range3D range = new Range3D(x, y, z, x + 4, y + 3, z + 1);
+            octree.insert(range, "gate" + i);
+            ranges.add(range);
+            data.add("gate" + i);
+        }
+        snapshot = octree.snapshot();
+        grid = ChunkGateGrid.build(ranges, data);
+
+        // 一半查询命中传送门，一半落在空旷区域
+        queries = new int[QUERY_COUNT * 3];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            if (i % 2 == 0) {
+                Range3D range = ranges.get(random.nextInt(ranges.size()));
+                queries[i * 3] = range.getMinX() + 1;
+                queries[i * 3 + 1] = range.getMinY() + 1;
+                queries[i * 3 + 2] = range.getMinZ();
+            } else {
+                queries[i * 3] = random.nextInt(200000) - 100000;
+                queries[i * 3 + 1] = random.nextInt(200);
+                queries[i * 3 + 2] = random.nextInt(200000) - 100000;
+            }
+        }
+    }
+
+    private int next() {
+        int index = cursor;
+        cursor = (cursor + 3) % queries.length;
+        return index;
+    }
+
+    @Benchmark
+    public void octreeAllocating(Blackhole blackhole) {
+        int i = next();
+        blackhole.consume(octree.queryRanges(new Point3D(queries[i], queries[i + 1], queries[i + 2])));
+    }
+
+    @Benchmark
+    public void octreeSink(Blackhole blackhole) {
+        int i = next();
+        rangeSink.clear();
+        octree.queryRanges(queries[i], queries[i + 1], queries[i + 2], rangeSink);
+        blackhole.consume(rangeSink.size());
+    }
+
+    @Benchmark
+    public void snapshotSink(Blackhole blackhole) {
+        int i = next();
+        dataSink.clear();
+        snapshot.query(queries[i], queries[i + 1], queries[i + 2], dataSink);
+        blackhole.consume(dataSink.size());
+    }
+
+    @Benchmark
+    public void chunkGridSink(Blackhole blackhole) {
+        int i = next();
+        dataSink.clear();
+        grid.query(queries[i], queries[i + 1], queries[i + 2], dataSink);
+        blackhole.consume(dataSink.size());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.plugin.gatetools.model.Gate;
+import org.plugin.gatetools.spatial.SpatialIndexManager;
+import org.plugin.gatetools.spatial.SpatialIndexSettings;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * 空间索引管理器查询基准测试
+ *
+ * 通过 SpatialIndexManager.query 测量完整查询路径（含按名称解析世界编号），
+ * 按后端类型与是否启用无锁快照参数化。
+ *
+ * @author NSrank, Augment
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialIndexManagerBenchmark {
+    private static final int QUERY_COUNT = 4096;
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int gateCount;
+
+    @Param({"small", "mixed", "large"})
+    public String distribution;
+
+    @Param({"octree", "chunk-grid"})
+    public String backend;
+
+    @Param({"true", "false"})
+    public boolean lockFreeSnapshot;
+
+    private SpatialIndexManager manager;
+    private int[] queries;
+    private int cursor;
+
+    private final List<Gate> sink = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        SpatialIndexSettings settings = new SpatialIndexSettings(
+            SpatialIndexManager.Backend.fromKey(backend), lockFreeSnapshot,
+            SpatialIndexSettings.DEFAULT_MAX_DEPTH, SpatialIndexSettings.DEFAULT_LEAF_CAPACITY, false);
+        manager = new SpatialIndexManager(Logger.getLogger("GateToolsBenchmark"), () -> settings);
+
+        List<Gate> gates = GateFixtures.createGates(gateCount, distribution, 42);
+        manager.rebuildIndex(gates);
+        queries = GateFixtures.createQueries(gates, QUERY_COUNT, 7);
+    }
+
+    @Benchmark
+    public void queryGates(Blackhole blackhole) {
+        int i = cursor;
+        cursor = (cursor + 3) % queries.length;
+        sink.clear();
+        manager.query(GateFixtures.WORLD_NAME, queries[i], queries[i + 1], queries[i + 2], sink);
+        blackhole.consume(sink.size());
+    }
+
+    @Benchmark
+    public Gate queryFirstGate() {
+        int i = cursor;
+        cursor = (cursor + 3) % queries.length;
+        return manager.first(manager.getWorldId(GateFixtures.WORLD_NAME), queries[i], queries[i + 1], queries[i + 2]);
+    }
+}
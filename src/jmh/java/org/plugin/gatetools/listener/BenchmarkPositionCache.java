@@ -0,0 +1,52 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.listener;
+
+import org.plugin.gatetools.model.Gate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 供基准测试使用的玩家位置查询缓存
+ * PlayerPositionCache只在监听器包内可见，基准测试通过此类调用同一实现
+ *
+ * @author NSrank, Augment
+ */
+public final class BenchmarkPositionCache {
+    private final PlayerPositionCache cache = new PlayerPositionCache();
+
+    public static long blockKey(int x, int y, int z) {
+        return PlayerPositionCache.blockKey(x, y, z);
+    }
+
+    public List<Gate> get(UUID playerId, int worldId, long blockKey, long generation) {
+        return cache.get(playerId, worldId, blockKey, generation);
+    }
+
+    public void put(UUID playerId, int worldId, long blockKey, long generation, List<Gate> gates) {
+        cache.put(playerId, worldId, blockKey, generation, gates);
+    }
+}
@@ -28,6 +28,7 @@ import org.bukkit.plugin.java.JavaPlugin;
 import org.plugin.gatetools.command.GateToolsCommand;
 import org.plugin.gatetools.config.ConfigManager;
 import org.plugin.gatetools.listener.PlayerMovementListener;
+import org.plugin.gatetools.listener.WorldListener;
 import org.plugin.gatetools.manager.GateManager;
 import org.plugin.gatetools.service.ConditionService;
 import org.plugin.gatetools.service.TeleportReceiptService;
@@ -48,6 +49,7 @@ public final class GateTools extends JavaPlugin {
     private TeleportService teleportService;
     private TeleportReceiptService receiptService;
     private MemoryMonitor memoryMonitor;
+    private PlayerMovementListener movementListener;
 
     @Override
     public void onEnable() {
@@ -65,8 +67,13 @@ public final class GateTools extends JavaPlugin {
         getCommand("gatetools").setTabCompleter(commandExecutor);
 
         // 注册事件监听器
-        getServer().getPluginManager().registerEvents(
-            new PlayerMovementListener(this, gateManager, teleportService), this);
+        this.movementListener = new PlayerMovementListener(this, gateManager, teleportService);
+        getServer().getPluginManager().registerEvents(movementListener, this);
+        movementListener.startDetection();
+
+        WorldListener worldListener = new WorldListener(gateManager.getSpatialIndexManager());
+        getServer().getPluginManager().registerEvents(worldListener, this);
+        worldListener.registerLoadedWorlds(getServer().getWorlds());
 
         // 启动内存监控
         memoryMonitor.startMonitoring();
@@ -84,9 +91,14 @@ public final class GateTools extends JavaPlugin {
             memoryMonitor.stopMonitoring();
         }
 
-        // 保存数据
+        // 停止采样检测
+        if (movementListener != null) {
+            movementListener.stopDetection();
+        }
+
+        // 等待持久化线程写完并保存剩余数据
         if (gateManager != null) {
-            gateManager.saveGates();
+            gateManager.shutdown();
         }
 
         getLogger().info("GateTools 插件已禁用！");
@@ -116,4 +128,8 @@ public final class GateTools extends JavaPlugin {
     public MemoryMonitor getMemoryMonitor() {
         return memoryMonitor;
     }
+
+    public PlayerMovementListener getMovementListener() {
+        return movementListener;
+    }
 }
@@ -32,6 +32,7 @@ public class GateToolsCommand implements CommandExecutor, TabCompleter {
         registerSubCommand(new DeleteCommand(plugin));
         registerSubCommand(new ReloadCommand(plugin));
         registerSubCommand(new SaveCommand(plugin));
+        registerSubCommand(new StorageCommand(plugin));
         registerSubCommand(new ConfirmCommand(plugin));
         registerSubCommand(new ConfirmTeleportCommand(plugin));
         registerSubCommand(new CancelTeleportCommand(plugin));
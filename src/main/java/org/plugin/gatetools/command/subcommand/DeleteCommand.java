@@ -127,11 +127,7 @@ public class DeleteCommand implements SubCommand {
         
         if (args.length == 1) {
             // 传送门名称补全
-            for (String gateName : plugin.getGateManager().getGateNames()) {
-                if (gateName.toLowerCase().startsWith(args[0].toLowerCase())) {
-                    completions.add(gateName);
-                }
-            }
+            completions.addAll(plugin.getGateManager().getGateNames(args[0]));
         }
         
         return completions;
@@ -180,6 +180,7 @@ public class EditCommand implements SubCommand {
 
             // 添加条件到传送门
             gate.addCondition(condition);
+            plugin.getGateManager().markDirty(gate.getConfigName());
             plugin.getGateManager().saveGatesAsync();
 
             String message = plugin.getConfigManager().getMessage("success.gate-edited")
@@ -214,11 +215,7 @@ public class EditCommand implements SubCommand {
 
         if (args.length == 1) {
             // 传送门名称补全
-            for (String gateName : plugin.getGateManager().getGateNames()) {
-                if (gateName.toLowerCase().startsWith(args[0].toLowerCase())) {
-                    completions.add(gateName);
-                }
-            }
+            completions.addAll(plugin.getGateManager().getGateNames(args[0]));
         } else if (args.length == 2) {
             // 配置项补全
             String[] conditionTypes = {"experience", "permission", "money", "teleport", "owner", "log"};
@@ -335,7 +332,8 @@ public class EditCommand implements SubCommand {
         // 检查是否是清除命令
         if ("clear".equalsIgnoreCase(owner1)) {
             gate.setOwners(new ArrayList<>());
-            plugin.getGateManager().saveGates();
+            plugin.getGateManager().markDirty(gate.getConfigName());
+            plugin.getGateManager().saveGatesAsync();
 
             String message = plugin.getConfigManager().getMessage("success.gate-edited")
                     .replace("%gate_name%", gate.getDisplayName());
@@ -376,8 +374,9 @@ public class EditCommand implements SubCommand {
         // 设置新的所有者列表
         gate.setOwners(newOwners);
 
-        // 保存配置（使用同步保存确保数据立即写入）
-        plugin.getGateManager().saveGates();
+        // 保存配置
+        plugin.getGateManager().markDirty(gate.getConfigName());
+        plugin.getGateManager().saveGatesAsync();
 
         // 调试日志：显示设置后的所有者信息
         if (plugin.getConfigManager().isDebugEnabled()) {
@@ -426,8 +425,9 @@ public class EditCommand implements SubCommand {
         // 设置日志状态
         gate.setLogEnabled(enableLog);
 
-        // 保存配置（使用同步保存确保数据立即写入）
-        plugin.getGateManager().saveGates();
+        // 保存配置
+        plugin.getGateManager().markDirty(gate.getConfigName());
+        plugin.getGateManager().saveGatesAsync();
 
         String message = plugin.getConfigManager().getMessage("success.gate-edited")
                 .replace("%gate_name%", gate.getDisplayName());
@@ -61,6 +61,9 @@ public class ReloadCommand implements SubCommand {
             // 重载传送门数据
             plugin.getGateManager().loadGates();
             
+            // 按新配置切换传送门检测模式
+            plugin.getMovementListener().startDetection();
+            
             String message = plugin.getConfigManager().getMessage("success.config-reloaded");
             sender.sendMessage(MessageUtil.colorize(message));
             
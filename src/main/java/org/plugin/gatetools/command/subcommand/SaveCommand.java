@@ -55,8 +55,8 @@ public class SaveCommand implements SubCommand {
     @Override
     public void execute(CommandSender sender, String[] args) {
         try {
-            // 异步保存数据
-            plugin.getGateManager().saveGatesAsync();
+            // 立即写入，不等待合并保存的延迟
+            plugin.getGateManager().flushGatesAsync();
             
             String message = plugin.getConfigManager().getMessage("success.data-saved");
             sender.sendMessage(MessageUtil.colorize(message));
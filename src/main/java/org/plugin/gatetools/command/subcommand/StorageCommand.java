@@ -0,0 +1,178 @@
+package org.plugin.gatetools.command.subcommand;
+
+import org.bukkit.command.CommandSender;
+import org.plugin.gatetools.GateTools;
+import org.plugin.gatetools.command.SubCommand;
+import org.plugin.gatetools.manager.GateCache;
+import org.plugin.gatetools.manager.GateManager;
+import org.plugin.gatetools.manager.GateSaveScheduler;
+import org.plugin.gatetools.storage.GateStore;
+import org.plugin.gatetools.storage.MappedGateStore;
+import org.plugin.gatetools.storage.YamlGateStore;
+import org.plugin.gatetools.util.MessageUtil;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 数据存储命令
+ * 用法: /gatetools storage <export|import|info> [文件名]
+ * 用于在二进制存储和YAML文件之间迁移传送门数据，文件位于插件数据目录下
+ * 
+ * @author NSrank, Augment
+ */
+public class StorageCommand implements SubCommand {
+    private static final String DEFAULT_EXPORT_FILE = "gates-export.yml";
+    private static final String EXPORT_SUFFIX = ".yml";
+    // 插件自身的配置文件，导出时不允许覆盖
+    private static final List<String> CONFIG_FILES = Arrays.asList("config.yml", "messages.yml");
+
+    private final GateTools plugin;
+    
+    public StorageCommand(GateTools plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public String getName() {
+        return "storage";
+    }
+    
+    @Override
+    public String getDescription() {
+        return "导入/导出传送门数据";
+    }
+    
+    @Override
+    public String getUsage() {
+        return "/gatetools storage <export|import|info> [文件名]";
+    }
+    
+    @Override
+    public List<String> getAliases() {
+        return Arrays.asList();
+    }
+    
+    @Override
+    public String getPermission() {
+        return "gatetools.command.storage";
+    }
+    
+    @Override
+    public boolean hasPermission(CommandSender sender) {
+        return sender.hasPermission(getPermission());
+    }
+    
+    @Override
+    public void execute(CommandSender sender, String[] args) {
+        if (args.length < 1) {
+            sender.sendMessage(MessageUtil.colorize("&c用法: " + getUsage()));
+            return;
+        }
+        
+        String action = args[0].toLowerCase();
+        GateManager gateManager = plugin.getGateManager();
+        
+        if (action.equals("info")) {
+            GateStore store = gateManager.getGateStore();
+            sender.sendMessage(MessageUtil.colorize("&e存储类型: &f" + store.getType()));
+            sender.sendMessage(MessageUtil.colorize("&e数据文件: &f" + store.getFile().getName() +
+                " &7(" + store.getFile().length() + " 字节)"));
+            sender.sendMessage(MessageUtil.colorize("&e传送门数量: &f" + gateManager.getGateCount()));
+            GateSaveScheduler scheduler = gateManager.getSaveScheduler();
+            sender.sendMessage(MessageUtil.colorize("&e待保存修改: &f" + scheduler.getPendingCount() +
+                " &e已完成保存: &f" + scheduler.getCompletedCount() +
+                " &7(合并 " + scheduler.getCoalescedCount() + " 次修改)"));
+            GateCache cache = gateManager.getGateCache();
+            if (cache != null) {
+                sender.sendMessage(MessageUtil.colorize("&e常驻传送门: &f" + gateManager.getResidentGateCount() +
+                    " &e缓存: &f" + cache.size() + "/" + cache.getCapacity() +
+                    " &7(命中 " + cache.getHits() + "，未命中 " + cache.getMisses() + ")"));
+            }
+            return;
+        }
+        
+        if (!action.equals("export") && !action.equals("import")) {
+            sender.sendMessage(MessageUtil.colorize("&c用法: " + getUsage()));
+            return;
+        }
+        
+        String fileName = args.length >= 2 ? args[1]
+            : (action.equals("export") ? DEFAULT_EXPORT_FILE : GateManager.YAML_DATA_FILE);
+        
+        // 只允许访问插件数据目录下的文件
+        if (fileName.contains("/") || fileName.contains("\\") || fileName.contains("..")
+                || (action.equals("export") && !isExportTarget(gateManager, fileName))) {
+            String message = plugin.getConfigManager().getMessage("error.invalid-file-name");
+            sender.sendMessage(MessageUtil.colorize(message.replace("%file%", fileName)));
+            return;
+        }
+        File file = new File(plugin.getDataFolder(), fileName);
+        boolean export = action.equals("export");
+        if (!export && !file.exists()) {
+            String message = plugin.getConfigManager().getMessage("error.file-not-found");
+            sender.sendMessage(MessageUtil.colorize(message.replace("%file%", fileName)));
+            return;
+        }
+        
+        // 文件读写在持久化线程上进行，完成后回到主线程报告结果
+        GateManager.TransferCallback callback = (count, error) -> {
+            if (error != null) {
+                sender.sendMessage(MessageUtil.colorize("&c处理数据文件时发生错误: " + error.getMessage()));
+                plugin.getLogger().warning("处理数据文件 " + fileName + " 时出错: " + error.getMessage());
+                return;
+            }
+            
+            String message = plugin.getConfigManager().getMessage(export ? "success.data-exported" : "success.data-imported");
+            sender.sendMessage(MessageUtil.colorize(message
+                .replace("%count%", String.valueOf(count))
+                .replace("%file%", fileName)));
+            if (!export && MappedGateStore.TYPE.equalsIgnoreCase(gateManager.getGateStore().getType())) {
+                sender.sendMessage(MessageUtil.colorize("&7内存映射存储下导入的传送门常驻内存，下次启动后恢复按需解码"));
+            }
+            
+            if (plugin.getConfigManager().isDebugEnabled()) {
+                plugin.getLogger().info("玩家 " + sender.getName() + " 执行了数据" + (export ? "导出" : "导入") + ": " + fileName);
+            }
+        };
+        
+        if (export) {
+            gateManager.exportGates(file, callback);
+        } else {
+            gateManager.importGates(file, callback);
+        }
+    }
+    
+    /**
+     * 检查文件名是否可以作为导出目标
+     * 导出只能写入 .yml 文件，并且不能覆盖插件正在使用的数据文件、日志文件和配置文件
+     */
+    private boolean isExportTarget(GateManager gateManager, String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (!name.endsWith(EXPORT_SUFFIX) || name.length() == EXPORT_SUFFIX.length()) {
+            return false;
+        }
+        if (name.equals(GateManager.BINARY_DATA_FILE) || name.equals(GateManager.JOURNAL_FILE)
+                || CONFIG_FILES.contains(name)) {
+            return false;
+        }
+        return !(name.equals(GateManager.YAML_DATA_FILE)
+            && YamlGateStore.TYPE.equalsIgnoreCase(gateManager.getGateStore().getType()));
+    }
+    
+    @Override
+    public List<String> onTabComplete(CommandSender sender, String[] args) {
+        List<String> completions = new ArrayList<>();
+        if (args.length == 1) {
+            for (String action : Arrays.asList("export", "import", "info")) {
+                if (action.startsWith(args[0].toLowerCase())) {
+                    completions.add(action);
+                }
+            }
+        }
+        return completions;
+    }
+}
@@ -3,27 +3,24 @@ package org.plugin.gatetools.config;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.plugin.gatetools.GateTools;
+import org.plugin.gatetools.spatial.SpatialIndexSettings;
 import org.plugin.gatetools.util.MessageUtil;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.UUID;
-import java.util.logging.Level;
 
 /**
  * 配置文件管理器
- * 负责管理config.yml和data.yml文件
+ * 负责管理config.yml和消息文件
  * 
  * @author NSrank, Augment
  */
 public class ConfigManager {
     private final GateTools plugin;
     private FileConfiguration config;
-    private FileConfiguration dataConfig;
-    private File dataFile;
+    // 当前配置快照，重载时整体替换
+    private volatile Settings settings;
     private MessageManager messageManager;
     
     public ConfigManager(GateTools plugin) {
@@ -42,17 +39,7 @@ public class ConfigManager {
         // 加载主配置文件
         plugin.reloadConfig();
         config = plugin.getConfig();
-        
-        // 创建并加载数据文件
-        dataFile = new File(plugin.getDataFolder(), "data.yml");
-        if (!dataFile.exists()) {
-            try {
-                dataFile.createNewFile();
-            } catch (IOException e) {
-                plugin.getLogger().log(Level.SEVERE, "无法创建数据文件", e);
-            }
-        }
-        dataConfig = YamlConfiguration.loadConfiguration(dataFile);
+        settings = new Settings(config, plugin.getLogger());
     }
     
     /**
@@ -66,80 +53,138 @@ public class ConfigManager {
     }
     
     /**
-     * 保存数据文件
-     */
-    public void saveData() {
-        try {
-            dataConfig.save(dataFile);
-        } catch (IOException e) {
-            plugin.getLogger().log(Level.SEVERE, "无法保存数据文件", e);
-        }
-    }
-    
-    /**
-     * 异步保存数据文件
+     * 获取当前配置快照
+     * 需要同时读取多个配置项时应先取得快照，保证它们来自同一次加载
      */
-    public void saveDataAsync() {
-        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, this::saveData);
+    public Settings getSettings() {
+        return settings;
     }
     
     // 配置获取方法
     public int getMaxGates() {
-        return config.getInt("settings.max-gates", 50);
+        return settings.getMaxGates();
     }
-    
+
     public int getDeleteConfirmTimeout() {
-        return config.getInt("settings.delete-confirm-timeout", 30);
+        return settings.getDeleteConfirmTimeout();
     }
-    
+
     public int getTeleportDelay() {
-        return config.getInt("settings.teleport-delay", 60);
+        return settings.getTeleportDelay();
     }
-    
+
     public int getAutoSaveInterval() {
-        return config.getInt("settings.auto-save-interval", 5);
+        return settings.getAutoSaveInterval();
     }
-    
+
     public boolean isDebugEnabled() {
-        return config.getBoolean("settings.debug", false);
+        return settings.isDebugEnabled();
+    }
+
+    // 数据存储配置方法
+    public String getStorageType() {
+        return settings.getStorageType();
+    }
+
+    public int getJournalCompactThreshold() {
+        return settings.getJournalCompactThreshold();
+    }
+
+    public int getSaveMaxDelayTicks() {
+        return settings.getSaveMaxDelayTicks();
+    }
+
+    public int getSaveMaxPending() {
+        return settings.getSaveMaxPending();
+    }
+
+    public int getMmapCacheSize() {
+        return settings.getMmapCacheSize();
     }
 
     // 内存管理配置方法
     public long getMemoryLimit() {
-        return config.getLong("memory.limit", 100) * 1024 * 1024; // 转换为字节
+        return settings.getMemoryLimit();
     }
 
     public long getMemoryLeakThreshold() {
-        return config.getLong("memory.leak-threshold", 50) * 1024 * 1024; // 转换为字节
+        return settings.getMemoryLeakThreshold();
     }
 
     public int getMemoryMonitorInterval() {
-        return config.getInt("memory.monitor-interval", 300); // 秒
+        return settings.getMemoryMonitorInterval();
     }
 
     public int getMemoryLeakCheckCycles() {
-        return config.getInt("memory.leak-check-cycles", 6);
+        return settings.getMemoryLeakCheckCycles();
     }
 
     public boolean isMemoryAutoCleanupEnabled() {
-        return config.getBoolean("memory.auto-cleanup", true);
+        return settings.isMemoryAutoCleanupEnabled();
     }
 
     public int getMemoryCleanupInterval() {
-        return config.getInt("memory.cleanup-interval", 10); // 分钟
+        return settings.getMemoryCleanupInterval();
+    }
+
+    // 空间索引配置方法
+    public boolean isSpatialSnapshotEnabled() {
+        return settings.isSpatialSnapshotEnabled();
+    }
+
+    public String getSpatialBackend() {
+        return settings.getSpatialBackend();
+    }
+
+    public int getSpatialMaxDepth() {
+        return settings.getSpatialMaxDepth();
+    }
+
+    public int getSpatialLeafCapacity() {
+        return settings.getSpatialLeafCapacity();
+    }
+
+    public boolean isSpatialVectorScanEnabled() {
+        return settings.isSpatialVectorScanEnabled();
+    }
+
+    public int getSpatialVectorScanMinItems() {
+        return settings.getSpatialVectorScanMinItems();
+    }
+
+    /**
+     * 获取空间索引配置（加载配置时已完成校验）
+     *
+     * @return 空间索引配置，后端无效时回退到八叉树
+     */
+    public SpatialIndexSettings getSpatialIndexSettings() {
+        return settings.getSpatialIndexSettings();
+    }
+
+    // 传送门检测配置方法
+    public boolean isSamplingDetectionEnabled() {
+        return settings.isSamplingDetectionEnabled();
+    }
+
+    public int getDetectionSampleInterval() {
+        return settings.getDetectionSampleInterval();
+    }
+
+    public int getPermissionCacheTtl() {
+        return settings.getPermissionCacheTtl();
     }
 
     // 经济系统配置方法
     public String getRecipientAccount() {
-        return config.getString("economy.recipient-account", "");
+        return settings.getRecipientAccount();
     }
 
     public boolean isTransferLoggingEnabled() {
-        return config.getBoolean("economy.transfer-logging", true);
+        return settings.isTransferLoggingEnabled();
     }
 
     public boolean isRecipientNotificationEnabled() {
-        return config.getBoolean("economy.notify-recipient", true);
+        return settings.isRecipientNotificationEnabled();
     }
 
     /**
@@ -259,14 +304,6 @@ public class ConfigManager {
         return config;
     }
     
-    public FileConfiguration getDataConfig() {
-        return dataConfig;
-    }
-    
-    public File getDataFile() {
-        return dataFile;
-    }
-
     public MessageManager getMessageManager() {
         return messageManager;
     }
@@ -9,18 +9,25 @@ import org.plugin.gatetools.util.MessageUtil;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 public class MessageManager {
+    private static final String DEFAULT_PREFIX = "&8[&6GateTools&8] &r";
+    
     private final GateTools plugin;
     private FileConfiguration messagesConfig;
-    private final Map<String, String> operatorTranslations;
+    // 加载时预先转换颜色代码的消息和运算符翻译，重载时整体替换
+    private volatile CompiledMessages compiled = CompiledMessages.EMPTY;
+    private volatile Map<String, String> operatorTranslations = Collections.emptyMap();
     
     public MessageManager(GateTools plugin) {
         this.plugin = plugin;
-        this.operatorTranslations = new HashMap<>();
         loadMessages();
         loadOperatorTranslations();
     }
@@ -47,16 +54,49 @@ public class MessageManager {
         messagesConfig = YamlConfiguration.loadConfiguration(messagesFile);
         plugin.getLogger().info("Loaded message configuration file from: " + messagesFile.getAbsolutePath());
 
+        // 合并插件内置的默认消息：旧版本生成的messages.yml缺少新增的消息时使用默认值（不写回文件）
+        InputStream defaultsStream = plugin.getResource("messages.yml");
+        if (defaultsStream != null) {
+            try (Reader reader = new InputStreamReader(defaultsStream, StandardCharsets.UTF_8)) {
+                messagesConfig.setDefaults(YamlConfiguration.loadConfiguration(reader));
+                messagesConfig.options().copyDefaults(true);
+            } catch (IOException e) {
+                plugin.getLogger().warning("Cannot read default messages from plugin jar: " + e.getMessage());
+            }
+        }
+
         // 验证配置是否正确加载
         if (messagesConfig.getKeys(false).isEmpty()) {
             plugin.getLogger().warning("messages.yml appears to be empty or invalid!");
         } else {
             plugin.getLogger().info("Loaded " + messagesConfig.getKeys(true).size() + " message keys");
         }
+        
+        compiled = compileMessages(messagesConfig);
+    }
+    
+    /**
+     * 预先转换全部消息的颜色代码，获取消息时只需一次哈希查找
+     */
+    private static CompiledMessages compileMessages(FileConfiguration messagesConfig) {
+        String prefix = messagesConfig.getString("prefix", DEFAULT_PREFIX);
+        Map<String, String> messages = new HashMap<>();
+        Map<String, String> prefixed = new HashMap<>();
+        for (String key : messagesConfig.getKeys(true)) {
+            if (messagesConfig.isConfigurationSection(key)) {
+                continue;
+            }
+            String message = messagesConfig.getString(key);
+            if (message != null) {
+                messages.put(key, MessageUtil.colorize(message));
+                prefixed.put(key, MessageUtil.colorize(prefix + message));
+            }
+        }
+        return new CompiledMessages(prefix, messages, prefixed);
     }
     
     private void loadOperatorTranslations() {
-        operatorTranslations.clear();
+        Map<String, String> operatorTranslations = new HashMap<>();
         if (messagesConfig.isConfigurationSection("operators")) {
             for (String key : messagesConfig.getConfigurationSection("operators").getKeys(false)) {
                 String translation = messagesConfig.getString("operators." + key, key);
@@ -70,41 +110,21 @@ public class MessageManager {
         operatorTranslations.putIfAbsent(">=", "greater than or equal");
         operatorTranslations.putIfAbsent("<", "less than");
         operatorTranslations.putIfAbsent("<=", "less than or equal");
+        this.operatorTranslations = Collections.unmodifiableMap(operatorTranslations);
     }
     
     public String getMessage(String key) {
-        String prefix = messagesConfig.getString("prefix", "&8[&6GateTools&8] &r");
-        String message = getRawMessage(key);
-        return MessageUtil.colorize(prefix + message);
+        CompiledMessages messages = compiled;
+        String message = messages.prefixed.get(key);
+        return message != null ? message : MessageUtil.colorize(messages.prefix + missingMessage(key));
     }
     
     public String getMessageWithoutPrefix(String key) {
-        return MessageUtil.colorize(getRawMessage(key));
+        String message = compiled.messages.get(key);
+        return message != null ? message : MessageUtil.colorize(missingMessage(key));
     }
     
-    private String getRawMessage(String key) {
-        // 首先尝试直接获取键值
-        String message = messagesConfig.getString(key);
-        if (message != null) {
-            return message;
-        }
-
-        // 如果直接获取失败，尝试处理层级键名（如 error.no-permission）
-        if (key.contains(".")) {
-            String[] parts = key.split("\\.", 2);
-            if (parts.length == 2) {
-                String section = parts[0];
-                String subKey = parts[1];
-                if (messagesConfig.isConfigurationSection(section)) {
-                    message = messagesConfig.getString(section + "." + subKey);
-                    if (message != null) {
-                        return message;
-                    }
-                }
-            }
-        }
-
-        // 如果都找不到，返回默认错误消息
+    private static String missingMessage(String key) {
         return "&cMessage not found: " + key;
     }
     
@@ -160,4 +180,22 @@ public class MessageManager {
     public java.util.Set<String> getAllMessageKeys() {
         return messagesConfig.getKeys(true);
     }
+
+    /**
+     * 一次加载得到的全部消息（已转换颜色代码）
+     */
+    private static final class CompiledMessages {
+        private static final CompiledMessages EMPTY =
+            new CompiledMessages(DEFAULT_PREFIX, Collections.emptyMap(), Collections.emptyMap());
+        
+        private final String prefix;
+        private final Map<String, String> messages;
+        private final Map<String, String> prefixed;
+        
+        private CompiledMessages(String prefix, Map<String, String> messages, Map<String, String> prefixed) {
+            this.prefix = prefix;
+            this.messages = messages;
+            this.prefixed = prefixed;
+        }
+    }
 }
@@ -0,0 +1,168 @@
+package org.plugin.gatetools.config;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.plugin.gatetools.spatial.SpatialIndexManager;
+import org.plugin.gatetools.spatial.SpatialIndexSettings;
+
+import java.util.logging.Logger;
+
+/**
+ * 插件配置快照
+ * 加载或重载config.yml时一次性读取并校验全部配置项，之后不再改变。
+ * ConfigManager通过volatile引用发布当前快照，热路径上读取配置只是普通的字段访问，
+ * 重载时整体替换，读取方不会看到新旧配置混合的状态
+ *
+ * @author NSrank, Augment
+ */
+public final class Settings {
+    // 基础设置
+    private final int maxGates;
+    private final int deleteConfirmTimeout;
+    private final int teleportDelay;
+    private final int autoSaveInterval;
+    private final boolean debug;
+
+    // 数据存储
+    private final String storageType;
+    private final int journalCompactThreshold;
+    private final int saveMaxDelayTicks;
+    private final int saveMaxPending;
+    private final int mmapCacheSize;
+
+    // 内存管理
+    private final long memoryLimit;
+    private final long memoryLeakThreshold;
+    private final int memoryMonitorInterval;
+    private final int memoryLeakCheckCycles;
+    private final boolean memoryAutoCleanup;
+    private final int memoryCleanupInterval;
+
+    // 空间索引
+    private final boolean spatialSnapshot;
+    private final String spatialBackend;
+    private final int spatialMaxDepth;
+    private final int spatialLeafCapacity;
+    private final boolean spatialVectorScan;
+    private final int spatialVectorScanMinItems;
+    private final SpatialIndexSettings spatialIndexSettings;
+
+    // 传送门检测
+    private final boolean samplingDetection;
+    private final int detectionSampleInterval;
+    private final int permissionCacheTtl;
+
+    // 经济系统
+    private final String recipientAccount;
+    private final boolean transferLogging;
+    private final boolean notifyRecipient;
+
+    /**
+     * 从配置文件读取全部配置项
+     *
+     * @param config 已加载的config.yml
+     * @param logger 用于报告无效配置的日志记录器
+     */
+    Settings(FileConfiguration config, Logger logger) {
+        this.maxGates = config.getInt("settings.max-gates", 50);
+        this.deleteConfirmTimeout = config.getInt("settings.delete-confirm-timeout", 30);
+        this.teleportDelay = config.getInt("settings.teleport-delay", 60);
+        this.autoSaveInterval = config.getInt("settings.auto-save-interval", 5);
+        this.debug = config.getBoolean("settings.debug", false);
+
+        this.storageType = config.getString("storage.type", "binary");
+        this.journalCompactThreshold = Math.max(1, config.getInt("storage.journal-compact-threshold", 1000));
+        this.saveMaxDelayTicks = Math.max(0, config.getInt("storage.save-max-delay", 40));
+        this.saveMaxPending = Math.max(1, config.getInt("storage.save-max-pending", 100));
+        this.mmapCacheSize = Math.max(1, config.getInt("storage.mmap-cache-size", 1024));
+
+        this.memoryLimit = config.getLong("memory.limit", 100) * 1024 * 1024; // 转换为字节
+        this.memoryLeakThreshold = config.getLong("memory.leak-threshold", 50) * 1024 * 1024; // 转换为字节
+        this.memoryMonitorInterval = config.getInt("memory.monitor-interval", 300); // 秒
+        this.memoryLeakCheckCycles = config.getInt("memory.leak-check-cycles", 6);
+        this.memoryAutoCleanup = config.getBoolean("memory.auto-cleanup", true);
+        this.memoryCleanupInterval = config.getInt("memory.cleanup-interval", 10); // 分钟
+
+        this.spatialSnapshot = config.getBoolean("spatial.lock-free-snapshot", true);
+        this.spatialBackend = config.getString("spatial.backend", "octree");
+        this.spatialMaxDepth = config.getInt("spatial.max-depth", SpatialIndexSettings.DEFAULT_MAX_DEPTH);
+        this.spatialLeafCapacity = config.getInt("spatial.leaf-capacity", SpatialIndexSettings.DEFAULT_LEAF_CAPACITY);
+        this.spatialVectorScan = config.getBoolean("spatial.vector-scan", false);
+        this.spatialVectorScanMinItems = config.getInt("spatial.vector-scan-min-items", SpatialIndexSettings.DEFAULT_VECTOR_SCAN_MIN_ITEMS);
+        this.spatialIndexSettings = buildSpatialIndexSettings(logger);
+
+        this.samplingDetection = "sampling".equalsIgnoreCase(config.getString("detection.mode", "event"));
+        this.detectionSampleInterval = Math.max(1, config.getInt("detection.sample-interval", 4)); // tick
+        this.permissionCacheTtl = Math.max(0, config.getInt("detection.permission-cache-ttl", 30)); // 秒
+
+        this.recipientAccount = config.getString("economy.recipient-account", "");
+        this.transferLogging = config.getBoolean("economy.transfer-logging", true);
+        this.notifyRecipient = config.getBoolean("economy.notify-recipient", true);
+    }
+
+    /**
+     * 构建空间索引配置，无效的配置项回退到默认值
+     */
+    private SpatialIndexSettings buildSpatialIndexSettings(Logger logger) {
+        SpatialIndexManager.Backend backend = SpatialIndexManager.Backend.fromKey(spatialBackend);
+        if (backend == null) {
+            logger.warning("无效的空间索引后端配置: " + spatialBackend + "，使用 octree");
+            backend = SpatialIndexManager.Backend.OCTREE;
+        }
+
+        int maxDepth = spatialMaxDepth;
+        if (maxDepth < 1 || maxDepth > 24) {
+            logger.warning("无效的八叉树最大深度配置: " + maxDepth + "，使用 " + SpatialIndexSettings.DEFAULT_MAX_DEPTH);
+            maxDepth = SpatialIndexSettings.DEFAULT_MAX_DEPTH;
+        }
+
+        int leafCapacity = spatialLeafCapacity;
+        if (leafCapacity < 1) {
+            logger.warning("无效的八叉树叶子容量配置: " + leafCapacity + "，使用 " + SpatialIndexSettings.DEFAULT_LEAF_CAPACITY);
+            leafCapacity = SpatialIndexSettings.DEFAULT_LEAF_CAPACITY;
+        }
+
+        int vectorScanMinItems = spatialVectorScanMinItems;
+        if (vectorScanMinItems < 1) {
+            logger.warning("无效的向量化扫描最小项目数配置: " + vectorScanMinItems + "，使用 " + SpatialIndexSettings.DEFAULT_VECTOR_SCAN_MIN_ITEMS);
+            vectorScanMinItems = SpatialIndexSettings.DEFAULT_VECTOR_SCAN_MIN_ITEMS;
+        }
+
+        return new SpatialIndexSettings(backend, spatialSnapshot, maxDepth, leafCapacity,
+            spatialVectorScan, vectorScanMinItems, debug);
+    }
+
+    public int getMaxGates() { return maxGates; }
+    public int getDeleteConfirmTimeout() { return deleteConfirmTimeout; }
+    public int getTeleportDelay() { return teleportDelay; }
+    public int getAutoSaveInterval() { return autoSaveInterval; }
+    public boolean isDebugEnabled() { return debug; }
+
+    public String getStorageType() { return storageType; }
+    public int getJournalCompactThreshold() { return journalCompactThreshold; }
+    public int getSaveMaxDelayTicks() { return saveMaxDelayTicks; }
+    public int getSaveMaxPending() { return saveMaxPending; }
+    public int getMmapCacheSize() { return mmapCacheSize; }
+
+    public long getMemoryLimit() { return memoryLimit; }
+    public long getMemoryLeakThreshold() { return memoryLeakThreshold; }
+    public int getMemoryMonitorInterval() { return memoryMonitorInterval; }
+    public int getMemoryLeakCheckCycles() { return memoryLeakCheckCycles; }
+    public boolean isMemoryAutoCleanupEnabled() { return memoryAutoCleanup; }
+    public int getMemoryCleanupInterval() { return memoryCleanupInterval; }
+
+    public boolean isSpatialSnapshotEnabled() { return spatialSnapshot; }
+    public String getSpatialBackend() { return spatialBackend; }
+    public int getSpatialMaxDepth() { return spatialMaxDepth; }
+    public int getSpatialLeafCapacity() { return spatialLeafCapacity; }
+    public boolean isSpatialVectorScanEnabled() { return spatialVectorScan; }
+    public int getSpatialVectorScanMinItems() { return spatialVectorScanMinItems; }
+    public SpatialIndexSettings getSpatialIndexSettings() { return spatialIndexSettings; }
+
+    public boolean isSamplingDetectionEnabled() { return samplingDetection; }
+    public int getDetectionSampleInterval() { return detectionSampleInterval; }
+    public int getPermissionCacheTtl() { return permissionCacheTtl; }
+
+    public String getRecipientAccount() { return recipientAccount; }
+    public boolean isTransferLoggingEnabled() { return transferLogging; }
+    public boolean isRecipientNotificationEnabled() { return notifyRecipient; }
+}
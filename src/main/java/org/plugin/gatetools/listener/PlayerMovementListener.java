@@ -1,48 +1,107 @@
 package org.plugin.gatetools.listener;
 
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerCommandSendEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitTask;
 import org.plugin.gatetools.GateTools;
 import org.plugin.gatetools.manager.GateManager;
 import org.plugin.gatetools.model.Gate;
 import org.plugin.gatetools.service.TeleportService;
+import org.plugin.gatetools.spatial.Segment3D;
 import org.plugin.gatetools.spatial.SpatialIndexManager;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
 /**
  * 玩家移动监听器
  * 负责检测玩家进入和离开传送区域
+ * 默认在移动事件中检测；启用采样模式后改由PlayerSamplingTask按固定间隔批量检测
+ * 
+ * 玩家所处的传送门只由移动终点决定。高速移动时路径上扫过、但终点不在其中的传送门视为"穿过"：
+ * 穿过是一次性触发，只弹出传送确认而不记入玩家所处的传送门，因此下一次移动不会产生离开事件；
+ * 穿过的确认在短时间后失效，玩家之后进入的传送门会替换它，不会被其阻塞
  * 
  * @author NSrank, Augment
  */
 public class PlayerMovementListener implements Listener {
+    // 单次移动超过此距离（方块）时不做路径检测，只检查终点
+    private static final int MAX_SWEEP_DISTANCE = 64;
+    
     private final GateTools plugin;
     private final GateManager gateManager;
     private final TeleportService teleportService;
     
+    // 查询缓冲区，移动事件只在主线程触发，可安全复用
+    private final List<Gate> currentGates = new ArrayList<>();
+    private final List<Gate> enteredGates = new ArrayList<>();
+    private final List<Gate> leftGates = new ArrayList<>();
+    private final List<Gate> crossedGates = new ArrayList<>();
+    private final Segment3D sweepSegment = new Segment3D(0, 0, 0, 0, 0, 0);
+    
+    // 每个玩家最近查询过的方块及结果
+    private final PlayerPositionCache positionCache = new PlayerPositionCache();
+    
+    // 每个玩家的 gatetools.use 权限检查结果
+    private final PlayerPermissionCache permissionCache = new PlayerPermissionCache();
+    
+    // 采样模式下的定时任务，为null表示使用移动事件检测
+    private BukkitTask samplingTask;
+    
     public PlayerMovementListener(GateTools plugin, GateManager gateManager, TeleportService teleportService) {
         this.plugin = plugin;
         this.gateManager = gateManager;
         this.teleportService = teleportService;
     }
     
+    /**
+     * 按当前配置启动传送门检测（插件启用和重载配置时调用）
+     * 采样模式下启动定时任务，移动事件不再触发检测
+     */
+    public void startDetection() {
+        stopDetection();
+        permissionCache.setTtl(plugin.getConfigManager().getPermissionCacheTtl());
+        if (!plugin.getConfigManager().isSamplingDetectionEnabled()) {
+            return;
+        }
+        
+        int interval = plugin.getConfigManager().getDetectionSampleInterval();
+        samplingTask = plugin.getServer().getScheduler().runTaskTimer(plugin,
+            new PlayerSamplingTask(plugin, gateManager, this, interval), 1L, 1L);
+        
+        if (plugin.getConfigManager().isDebugEnabled()) {
+            plugin.getLogger().info("传送门检测使用采样模式，采样间隔: " + interval + " tick");
+        }
+    }
+    
+    /**
+     * 停止采样任务，恢复为移动事件检测
+     */
+    public void stopDetection() {
+        if (samplingTask != null) {
+            samplingTask.cancel();
+            samplingTask = null;
+        }
+    }
+    
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onPlayerMove(PlayerMoveEvent event) {
-        Player player = event.getPlayer();
-        UUID playerId = player.getUniqueId();
-        
-        // 检查玩家是否有基础使用权限
-        if (!player.hasPermission("gatetools.use")) {
+        // 采样模式下由定时任务统一检测
+        if (samplingTask != null) {
             return;
         }
         
+        Player player = event.getPlayer();
+        
         // 优化：只在玩家实际移动时检查（不包括视角转动）
         if (event.getFrom().getBlockX() == event.getTo().getBlockX() &&
             event.getFrom().getBlockY() == event.getTo().getBlockY() &&
@@ -50,46 +109,193 @@ public class PlayerMovementListener implements Listener {
             return;
         }
         
-        // 使用空间索引查询当前位置的传送门
-        SpatialIndexManager spatialIndexManager = gateManager.getSpatialIndexManager();
-        List<Gate> currentGates = spatialIndexManager.queryGates(event.getTo());
+        // 检查玩家是否有基础使用权限（使用缓存的结果）
+        if (!canUse(player)) {
+            return;
+        }
+        
+        // 使用空间索引查询当前位置的传送门（复用缓冲区，不产生垃圾对象）
+        // 所在区块没有任何传送门时跳过查询，仍需更新归属以处理离开
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        SpatialIndexManager spatialIndex = gateManager.getSpatialIndexManager();
+        UUID playerId = player.getUniqueId();
+        int worldId = spatialIndex.getWorldId(to.getWorld());
+        currentGates.clear();
+        if (!isSweepNeeded(from, to)) {
+            if (spatialIndex.hasGatesInChunk(worldId, to.getBlockX() >> 4, to.getBlockZ() >> 4)) {
+                queryGates(playerId, worldId, to.getBlockX(), to.getBlockY(), to.getBlockZ(), currentGates);
+            }
+            updatePlayerGates(player, currentGates);
+            return;
+        }
+        
+        // 高速移动（鞘翅、矿车等）一次跨越多个方块，检查整条路径以免跳过较薄的传送门
+        // 终点所在的传送门照常更新，路径上的其余传送门按穿过处理
+        crossedGates.clear();
+        if (spatialIndex.hasGatesInChunks(worldId,
+                Math.min(from.getBlockX(), to.getBlockX()) >> 4, Math.min(from.getBlockZ(), to.getBlockZ()) >> 4,
+                Math.max(from.getBlockX(), to.getBlockX()) >> 4, Math.max(from.getBlockZ(), to.getBlockZ()) >> 4)) {
+            if (spatialIndex.hasGatesInChunk(worldId, to.getBlockX() >> 4, to.getBlockZ() >> 4)) {
+                queryGates(playerId, worldId, to.getBlockX(), to.getBlockY(), to.getBlockZ(), currentGates);
+            }
+            gateManager.queryGates(worldId,
+                sweepSegment.set(from.getX(), from.getY(), from.getZ(), to.getX(), to.getY(), to.getZ()), crossedGates);
+        }
+        // 会话中的列表不可变，更新后仍是移动前所处的传送门
+        List<Gate> previousGates = gateManager.getPlayerGateTracker().getGates(playerId);
+        updatePlayerGates(player, currentGates);
+        handleCrossedGates(player, previousGates, currentGates, crossedGates);
+    }
+    
+    /**
+     * 检查玩家是否有基础使用权限，结果按配置的有效期缓存
+     * 只在主线程调用
+     */
+    boolean canUse(Player player) {
+        return permissionCache.canUse(player);
+    }
+    
+    /**
+     * 查询玩家所在方块的传送门，最近查询过的方块直接使用缓存的结果
+     * 只在主线程调用
+     * 
+     * @param result 结果列表（可重复使用）
+     */
+    void queryGates(UUID playerId, int worldId, int x, int y, int z, List<Gate> result) {
+        // 先读取代数再查询，查询期间索引发生变化时缓存的结果会立即失效
+        long generation = gateManager.getQueryGeneration();
+        long blockKey = PlayerPositionCache.blockKey(x, y, z);
+        List<Gate> cached = positionCache.get(playerId, worldId, blockKey, generation);
+        if (cached != null) {
+            for (int i = 0; i < cached.size(); i++) {
+                result.add(cached.get(i));
+            }
+            return;
+        }
+        
+        int start = result.size();
+        gateManager.queryGates(worldId, x, y, z, result);
+        positionCache.put(playerId, worldId, blockKey, generation, result.subList(start, result.size()));
+    }
+    
+    /**
+     * 缓存批量查询得到的结果（采样模式下调用）
+     */
+    void cacheResult(UUID playerId, int worldId, int x, int y, int z, long generation, List<Gate> gates) {
+        positionCache.put(playerId, worldId, PlayerPositionCache.blockKey(x, y, z), generation, gates);
+    }
+    
+    /**
+     * 获取缓存的查询结果（采样模式下调用）
+     * 
+     * @return 传送门列表（只读），未缓存或已失效时返回null
+     */
+    List<Gate> getCachedResult(UUID playerId, int worldId, int x, int y, int z, long generation) {
+        return positionCache.get(playerId, worldId, PlayerPositionCache.blockKey(x, y, z), generation);
+    }
+    
+    /**
+     * 检查本次移动是否需要检测整条路径
+     * 只移动到相邻方块时路径上不会有被跳过的完整方块，检查终点即可
+     */
+    private boolean isSweepNeeded(Location from, Location to) {
+        if (from.getWorld() != to.getWorld()) {
+            return false;
+        }
+        int distance = Math.max(Math.abs(to.getBlockX() - from.getBlockX()),
+            Math.max(Math.abs(to.getBlockY() - from.getBlockY()), Math.abs(to.getBlockZ() - from.getBlockZ())));
+        return distance > 1 && distance <= MAX_SWEEP_DISTANCE;
+    }
+    
+    /**
+     * 用玩家当前位置的查询结果更新其所处的传送门，并处理进入/离开
+     * 只在主线程调用
+     * 
+     * @param player 玩家
+     * @param currentGates 玩家当前位置的传送门列表
+     */
+    void updatePlayerGates(Player player, List<Gate> currentGates) {
+        UUID playerId = player.getUniqueId();
 
-        // 检查所有传送门的状态变化
-        Map<String, Gate> allGates = gateManager.getAllGates();
-        for (Gate gate : allGates.values()) {
-            boolean wasInside = gate.isPlayerInside(playerId);
-            boolean isInside = currentGates.contains(gate);
+        // 与上一次的查询结果比较，只处理发生变化的传送门
+        enteredGates.clear();
+        leftGates.clear();
+        if (!gateManager.getPlayerGateTracker().update(playerId, currentGates, enteredGates, leftGates)) {
+            return;
+        }
+
+        // 先处理离开，再处理进入
+        for (Gate gate : leftGates) {
+            // 玩家离开传送区域
+            handlePlayerLeaveGate(player, gate);
 
-            if (!wasInside && isInside) {
-                // 玩家进入传送区域
-                gate.playerEnter(playerId);
-                handlePlayerEnterGate(player, gate);
+            if (plugin.getConfigManager().isDebugEnabled()) {
+                plugin.getLogger().info("玩家 " + player.getName() + " 离开传送门: " + gate.getConfigName());
+            }
+        }
 
-                if (plugin.getConfigManager().isDebugEnabled()) {
-                    plugin.getLogger().info("玩家 " + player.getName() + " 进入传送门: " + gate.getConfigName());
-                }
-            } else if (wasInside && !isInside) {
-                // 玩家离开传送区域
-                gate.playerLeave(playerId);
-                handlePlayerLeaveGate(player, gate);
+        for (Gate gate : enteredGates) {
+            // 玩家进入传送区域
+            handlePlayerEnterGate(player, gate, false);
 
-                if (plugin.getConfigManager().isDebugEnabled()) {
-                    plugin.getLogger().info("玩家 " + player.getName() + " 离开传送门: " + gate.getConfigName());
-                }
+            if (plugin.getConfigManager().isDebugEnabled()) {
+                plugin.getLogger().info("玩家 " + player.getName() + " 进入传送门: " + gate.getConfigName());
             }
         }
     }
     
+    /**
+     * 处理玩家在本次移动中穿过的传送门
+     * 只触发传送确认，不记入玩家所处的传送门；移动前已在其中或终点仍在其中的传送门不算穿过
+     * 
+     * @param player 玩家
+     * @param previousGates 移动前所处的传送门
+     * @param currentGates 移动终点所处的传送门
+     * @param sweptGates 路径扫过的传送门
+     */
+    private void handleCrossedGates(Player player, List<Gate> previousGates, List<Gate> currentGates, List<Gate> sweptGates) {
+        for (int i = 0; i < sweptGates.size(); i++) {
+            Gate gate = sweptGates.get(i);
+            if (currentGates.contains(gate) || previousGates.contains(gate)) {
+                continue;
+            }
+            
+            if (plugin.getConfigManager().isDebugEnabled()) {
+                plugin.getLogger().info("玩家 " + player.getName() + " 穿过传送门: " + gate.getConfigName());
+            }
+            handlePlayerEnterGate(player, gate, true);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        permissionCache.refresh(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        // 权限插件可能按世界授予权限
+        permissionCache.refresh(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerCommandSend(PlayerCommandSendEvent event) {
+        // 玩家权限重新计算后服务器会重新发送可用命令列表，借此使缓存的权限失效
+        permissionCache.refresh(event.getPlayer());
+    }
+    
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
         UUID playerId = player.getUniqueId();
         
-        // 清理玩家状态
-        Map<String, Gate> gates = gateManager.getAllGates();
-        for (Gate gate : gates.values()) {
-            gate.playerLeave(playerId);
-        }
+        // 清理玩家会话（所处的传送门和确认状态）
+        gateManager.getPlayerGateTracker().removePlayer(playerId);
+        
+        // 清理查询缓存和权限缓存
+        positionCache.remove(playerId);
+        permissionCache.remove(playerId);
         
         // 取消传送任务
         teleportService.cancelTeleport(playerId);
@@ -100,15 +306,9 @@ public class PlayerMovementListener implements Listener {
      * 
      * @param player 玩家
      * @param gate 传送门
+     * @param crossed 是否为本次移动中穿过（而非停留在其中）的传送门
      */
-    private void handlePlayerEnterGate(Player player, Gate gate) {
-        UUID playerId = player.getUniqueId();
-
-        // 检查是否已经在确认状态（避免重复触发）
-        if (gate.isPlayerConfirming(playerId)) {
-            return;
-        }
-
+    private void handlePlayerEnterGate(Player player, Gate gate, boolean crossed) {
         // 检查传送门是否配置了传送目标
         if (gate.getTeleportLocation() == null) {
             if (plugin.getConfigManager().isDebugEnabled()) {
@@ -121,8 +321,12 @@ public class PlayerMovementListener implements Listener {
             plugin.getLogger().info("玩家 " + player.getName() + " 进入传送区域: " + gate.getDisplayName());
         }
 
-        // 触发传送确认
-        teleportService.showTeleportConfirmation(player, gate);
+        // 触发传送确认，已经在确认该传送门时不会重复提示
+        if (crossed) {
+            teleportService.showCrossingConfirmation(player, gate);
+        } else {
+            teleportService.showTeleportConfirmation(player, gate);
+        }
     }
     
     /**
@@ -0,0 +1,79 @@
+package org.plugin.gatetools.listener;
+
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 玩家使用权限缓存
+ * 缓存每个玩家 gatetools.use 的检查结果，移动检测时只需读取一个布尔字段，
+ * 不必在每次移动时经过权限插件查询。结果在超过有效期或被显式失效后重新检查。
+ * 只在主线程访问
+ *
+ * @author NSrank, Augment
+ */
+final class PlayerPermissionCache {
+    static final String USE_PERMISSION = "gatetools.use";
+
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    // 有效期（纳秒），0表示不缓存
+    private long ttlNanos;
+
+    /**
+     * 设置缓存有效期并清空已缓存的结果（加载配置时调用）
+     *
+     * @param ttlSeconds 有效期（秒），0表示每次都重新检查
+     */
+    void setTtl(int ttlSeconds) {
+        ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(0, ttlSeconds));
+        entries.clear();
+    }
+
+    /**
+     * 检查玩家是否可以使用传送门，缓存未命中或已过期时重新检查权限
+     */
+    boolean canUse(Player player) {
+        if (ttlNanos == 0) {
+            return player.hasPermission(USE_PERMISSION);
+        }
+
+        long now = System.nanoTime();
+        Entry entry = entries.get(player.getUniqueId());
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(player.getUniqueId(), entry);
+        } else if (now - entry.checkedAt < ttlNanos) {
+            return entry.allowed;
+        }
+        entry.allowed = player.hasPermission(USE_PERMISSION);
+        entry.checkedAt = now;
+        return entry.allowed;
+    }
+
+    /**
+     * 立即重新检查玩家的权限（玩家加入或权限可能变化时调用）
+     */
+    void refresh(Player player) {
+        if (ttlNanos == 0) {
+            return;
+        }
+        Entry entry = entries.computeIfAbsent(player.getUniqueId(), id -> new Entry());
+        entry.allowed = player.hasPermission(USE_PERMISSION);
+        entry.checkedAt = System.nanoTime();
+    }
+
+    /**
+     * 移除玩家的缓存（玩家退出时调用）
+     */
+    void remove(UUID playerId) {
+        entries.remove(playerId);
+    }
+
+    private static final class Entry {
+        private boolean allowed;
+        private long checkedAt;
+    }
+}
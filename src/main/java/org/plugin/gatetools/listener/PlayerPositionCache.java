@@ -0,0 +1,92 @@
+package org.plugin.gatetools.listener;
+
+import org.plugin.gatetools.model.Gate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 玩家位置查询缓存
+ * 为每个玩家保存最近两个不同方块的查询结果（世界以编号区分），玩家在方块边缘来回跳动时无需再次查询空间索引。
+ * 每个结果记录查询时的代数（GateManager.getQueryGeneration），传送门或索引变化后自动失效。
+ * 只在主线程访问
+ *
+ * @author NSrank, Augment
+ */
+final class PlayerPositionCache {
+    private final Map<UUID, Entry> entries = new HashMap<>();
+
+    /**
+     * 将方块坐标打包为long键（X、Z各26位，Y 12位）
+     */
+    static long blockKey(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    /**
+     * 获取缓存的查询结果
+     *
+     * @return 传送门列表（只读），未缓存或已失效时返回null
+     */
+    List<Gate> get(UUID playerId, int worldId, long blockKey, long generation) {
+        Entry entry = entries.get(playerId);
+        if (entry == null || entry.generation != generation || entry.worldId != worldId) {
+            return null;
+        }
+        if (entry.lastKey == blockKey) {
+            return entry.lastGates;
+        }
+        if (entry.hasPrevious && entry.previousKey == blockKey) {
+            return entry.previousGates;
+        }
+        return null;
+    }
+
+    /**
+     * 缓存查询结果，原来的最近结果保留为上一个结果
+     *
+     * @param gates 查询结果（会被复制）
+     */
+    void put(UUID playerId, int worldId, long blockKey, long generation, List<Gate> gates) {
+        List<Gate> copy = gates.isEmpty() ? Collections.emptyList() : List.copyOf(gates);
+
+        Entry entry = entries.get(playerId);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(playerId, entry);
+        }
+
+        if (entry.generation == generation && entry.worldId == worldId && entry.lastKey != blockKey) {
+            entry.previousKey = entry.lastKey;
+            entry.previousGates = entry.lastGates;
+            entry.hasPrevious = true;
+        } else {
+            entry.previousGates = Collections.emptyList();
+            entry.hasPrevious = false;
+        }
+        entry.worldId = worldId;
+        entry.generation = generation;
+        entry.lastKey = blockKey;
+        entry.lastGates = copy;
+    }
+
+    /**
+     * 移除玩家的缓存（玩家退出时调用）
+     */
+    void remove(UUID playerId) {
+        entries.remove(playerId);
+    }
+
+    private static final class Entry {
+        private int worldId = -1;
+        private long generation;
+        private long lastKey;
+        private List<Gate> lastGates = Collections.emptyList();
+        private long previousKey;
+        private List<Gate> previousGates = Collections.emptyList();
+        private boolean hasPrevious;
+    }
+}
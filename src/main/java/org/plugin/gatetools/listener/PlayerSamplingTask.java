@@ -0,0 +1,142 @@
+package org.plugin.gatetools.listener;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.plugin.gatetools.GateTools;
+import org.plugin.gatetools.manager.GateManager;
+import org.plugin.gatetools.model.Gate;
+import org.plugin.gatetools.spatial.SpatialIndexManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 玩家位置采样任务
+ * 每tick在主线程运行一次，只检测UUID哈希落在当前槽位的玩家，
+ * 每个玩家每隔sampleInterval个tick被检测一次。同一世界的玩家合并为一次批量查询，
+ * 进入/离开处理与移动事件模式相同。检测开销只与在线人数成正比，不随移动频率增长
+ *
+ * @author NSrank, Augment
+ */
+class PlayerSamplingTask implements Runnable {
+    private final GateTools plugin;
+    private final GateManager gateManager;
+    private final PlayerMovementListener listener;
+    private final int sampleInterval;
+
+    // 按世界编号分组的采样批次，跨tick复用
+    private Batch[] batches = new Batch[0];
+    private final List<Gate> results = new ArrayList<>();
+    private final List<Gate> currentGates = new ArrayList<>();
+    private long tick;
+
+    PlayerSamplingTask(GateTools plugin, GateManager gateManager, PlayerMovementListener listener, int sampleInterval) {
+        this.plugin = plugin;
+        this.gateManager = gateManager;
+        this.listener = listener;
+        this.sampleInterval = Math.max(1, sampleInterval);
+    }
+
+    @Override
+    public void run() {
+        int slot = (int) (tick++ % sampleInterval);
+
+        for (Batch batch : batches) {
+            if (batch != null) {
+                batch.clear();
+            }
+        }
+
+        SpatialIndexManager spatialIndex = gateManager.getSpatialIndexManager();
+        long generation = gateManager.getQueryGeneration();
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            if (Math.floorMod(player.getUniqueId().hashCode(), sampleInterval) != slot) {
+                continue;
+            }
+            if (!listener.canUse(player)) {
+                continue;
+            }
+
+            // 所在区块没有传送门的玩家不参与批量查询，只需处理可能的离开
+            Location location = player.getLocation();
+            int worldId = spatialIndex.getWorldId(location.getWorld());
+            if (!spatialIndex.hasGatesInChunk(worldId, location.getBlockX() >> 4, location.getBlockZ() >> 4)) {
+                currentGates.clear();
+                listener.updatePlayerGates(player, currentGates);
+                continue;
+            }
+            // 站在最近查询过的方块上的玩家直接使用缓存的结果
+            List<Gate> cached = listener.getCachedResult(player.getUniqueId(), worldId,
+                location.getBlockX(), location.getBlockY(), location.getBlockZ(), generation);
+            if (cached != null) {
+                listener.updatePlayerGates(player, cached);
+                continue;
+            }
+            batchFor(worldId).add(player, location.getBlockX(), location.getBlockY(), location.getBlockZ());
+        }
+
+        for (int worldId = 0; worldId < batches.length; worldId++) {
+            Batch batch = batches[worldId];
+            if (batch == null || batch.count == 0) {
+                continue;
+            }
+
+            results.clear();
+            gateManager.queryGates(worldId, batch.coords, batch.count, results, batch.ends);
+
+            int start = 0;
+            for (int i = 0; i < batch.count; i++) {
+                currentGates.clear();
+                for (int j = start; j < batch.ends[i]; j++) {
+                    currentGates.add(results.get(j));
+                }
+                start = batch.ends[i];
+
+                Player player = batch.players.get(i);
+                listener.cacheResult(player.getUniqueId(), worldId,
+                    batch.coords[i * 3], batch.coords[i * 3 + 1], batch.coords[i * 3 + 2], generation, currentGates);
+                listener.updatePlayerGates(player, currentGates);
+            }
+        }
+    }
+
+    private Batch batchFor(int worldId) {
+        if (worldId >= batches.length) {
+            batches = Arrays.copyOf(batches, worldId + 1);
+        }
+        Batch batch = batches[worldId];
+        if (batch == null) {
+            batch = new Batch();
+            batches[worldId] = batch;
+        }
+        return batch;
+    }
+
+    /**
+     * 同一世界中本tick需要检测的玩家及其方块坐标
+     */
+    private static final class Batch {
+        private final List<Player> players = new ArrayList<>();
+        private int[] coords = new int[48];
+        private int[] ends = new int[16];
+        private int count;
+
+        void add(Player player, int x, int y, int z) {
+            if (count == ends.length) {
+                ends = Arrays.copyOf(ends, count * 2);
+                coords = Arrays.copyOf(coords, count * 6);
+            }
+            players.add(player);
+            coords[count * 3] = x;
+            coords[count * 3 + 1] = y;
+            coords[count * 3 + 2] = z;
+            count++;
+        }
+
+        void clear() {
+            players.clear();
+            count = 0;
+        }
+    }
+}
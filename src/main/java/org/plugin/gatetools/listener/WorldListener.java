@@ -0,0 +1,47 @@
+package org.plugin.gatetools.listener;
+
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+import org.plugin.gatetools.spatial.SpatialIndexManager;
+
+import java.util.Collection;
+
+/**
+ * 世界加载监听器
+ * 将已加载的世界登记到空间索引，使移动检测可以按世界编号直接访问索引，
+ * 世界卸载时释放其索引
+ *
+ * @author NSrank, Augment
+ */
+public class WorldListener implements Listener {
+    private final SpatialIndexManager spatialIndexManager;
+
+    public WorldListener(SpatialIndexManager spatialIndexManager) {
+        this.spatialIndexManager = spatialIndexManager;
+    }
+
+    /**
+     * 登记插件启用前已经加载的世界
+     *
+     * @param worlds 当前已加载的世界
+     */
+    public void registerLoadedWorlds(Collection<World> worlds) {
+        for (World world : worlds) {
+            spatialIndexManager.loadWorld(world);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldLoad(WorldLoadEvent event) {
+        spatialIndexManager.loadWorld(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        spatialIndexManager.unloadWorld(event.getWorld());
+    }
+}
@@ -0,0 +1,100 @@
+package org.plugin.gatetools.manager;
+
+import org.plugin.gatetools.model.Gate;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按需解码的传送门LRU缓存
+ * 超出容量时淘汰最久未访问的传送门，但跳过仍有玩家在其中或正在确认的传送门，
+ * 保证玩家所处的传送门对象在离开前保持不变
+ *
+ * @author NSrank, Augment
+ */
+public class GateCache {
+    // 每次淘汰最多检查的条目数，避免大量被占用的传送门拖慢插入
+    private static final int MAX_EVICTION_SCAN = 16;
+
+    private final int capacity;
+    private final PlayerGateTracker tracker;
+    private final LinkedHashMap<String, Gate> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public GateCache(int capacity, PlayerGateTracker tracker) {
+        this.capacity = Math.max(1, capacity);
+        this.tracker = tracker;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * 获取缓存的传送门并标记为最近使用
+     *
+     * @return 传送门，未缓存时返回null
+     */
+    public synchronized Gate get(String configName) {
+        Gate gate = entries.get(configName);
+        if (gate != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return gate;
+    }
+
+    /**
+     * 缓存传送门，超出容量时淘汰最久未访问的空闲传送门
+     */
+    public synchronized void put(Gate gate) {
+        entries.put(gate.getConfigName(), gate);
+
+        int scanned = 0;
+        Iterator<Map.Entry<String, Gate>> it = entries.entrySet().iterator();
+        while (entries.size() > capacity && it.hasNext() && scanned++ < MAX_EVICTION_SCAN) {
+            Gate eldest = it.next().getValue();
+            if (eldest != gate && !tracker.isOccupied(eldest)) {
+                it.remove();
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * 移出缓存
+     *
+     * @return 被移出的传送门，未缓存时返回null
+     */
+    public synchronized Gate remove(String configName) {
+        return entries.remove(configName);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * 获取累计淘汰次数，被淘汰的传送门再次访问时会解码为新的对象
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+}
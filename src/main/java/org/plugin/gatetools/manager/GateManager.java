@@ -1,14 +1,23 @@
 package org.plugin.gatetools.manager;
 
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.FileConfiguration;
 import org.plugin.gatetools.GateTools;
 import org.plugin.gatetools.config.ConfigManager;
 import org.plugin.gatetools.model.Gate;
-import org.plugin.gatetools.model.GateCondition;
 import org.plugin.gatetools.model.Location3D;
+import org.plugin.gatetools.spatial.RangeArray;
+import org.plugin.gatetools.spatial.Segment3D;
 import org.plugin.gatetools.spatial.SpatialIndexManager;
+import org.plugin.gatetools.storage.BinaryGateStore;
+import org.plugin.gatetools.storage.GateJournal;
+import org.plugin.gatetools.storage.GateStore;
+import org.plugin.gatetools.storage.GateTable;
+import org.plugin.gatetools.storage.MappedGateStore;
+import org.plugin.gatetools.storage.PartialLoadException;
+import org.plugin.gatetools.storage.YamlGateStore;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
@@ -16,6 +25,12 @@ import java.util.logging.Level;
 /**
  * 传送门管理器
  * 负责管理所有传送门的创建、编辑、删除和数据持久化
+ * 所有数据写入都在单独的持久化线程上按顺序执行，主线程只负责标记变更，
+ * 短时间内的连续修改由GateSaveScheduler合并为一次写入
+ * 
+ * 使用mmap存储时为延迟加载模式：数据文件映射为GateTable，空间索引中只保存传送门名称，
+ * 完整的传送门在首次访问时解码并放入LRU缓存；新建、修改过的传送门常驻gates直到下次加载，
+ * 删除的传送门记录在deletedGates中。
  * 
  * @author NSrank, Augment
  */
@@ -25,6 +40,27 @@ public class GateManager {
     private final Map<String, Gate> gates;
     private final Map<UUID, Long> deleteConfirmations;
     private final SpatialIndexManager spatialIndexManager;
+    private final PlayerGateTracker playerGateTracker;
+    private final Set<String> dirtyGates = ConcurrentHashMap.newKeySet();
+    private final Object saveLock = new Object();
+    private final GateSaveScheduler saveScheduler;
+    private GateStore gateStore;
+    private GateJournal gateJournal;
+    
+    // 延迟加载模式（mmap存储）下的记录表和解码缓存，全部常驻时为null
+    private volatile GateTable gateTable;
+    private volatile GateCache gateCache;
+    private final Set<String> deletedGates = ConcurrentHashMap.newKeySet();
+    // 延迟加载模式下只存在于记录表中（未常驻、未删除）的传送门数量，只在主线程修改
+    private volatile int mappedOnlyCount;
+    private final ThreadLocal<List<Object>> queryBuffer = ThreadLocal.withInitial(ArrayList::new);
+    // 本进程是否已映射过数据文件，只在持有saveLock时访问
+    private boolean dataFileMapped;
+
+    // 数据文件名
+    public static final String YAML_DATA_FILE = "data.yml";
+    public static final String BINARY_DATA_FILE = "gates.dat";
+    public static final String JOURNAL_FILE = "gates.journal";
 
     public GateManager(GateTools plugin, ConfigManager configManager) {
         this.plugin = plugin;
@@ -32,6 +68,9 @@ public class GateManager {
         this.gates = new ConcurrentHashMap<>();
         this.deleteConfirmations = new ConcurrentHashMap<>();
         this.spatialIndexManager = new SpatialIndexManager(plugin);
+        this.playerGateTracker = new PlayerGateTracker();
+        this.saveScheduler = new GateSaveScheduler(this::saveGates, plugin.getLogger(),
+            configManager.getSaveMaxDelayTicks() * 50L, configManager.getSaveMaxPending());
 
         loadGates();
         startAutoSaveTask();
@@ -41,156 +80,540 @@ public class GateManager {
      * 从数据文件加载传送门
      */
     public void loadGates() {
+        synchronized (saveLock) {
+            // 重载前先写入尚未保存的变更
+            if (gateStore != null) {
+                saveGates();
+            }
+            gateStore = createGateStore();
+            // 变更日志只用于二进制存储，YAML存储保持data.yml为完整数据
+            gateJournal = gateStore instanceof BinaryGateStore
+                ? new GateJournal(new File(plugin.getDataFolder(), JOURNAL_FILE), plugin.getLogger())
+                : null;
+            dirtyGates.clear();
+            if (gateStore instanceof MappedGateStore) {
+                // 旧表的映射要等MappedByteBuffer被GC回收后才会解除，释放引用并不能立即解除映射，
+                // 因此只在本进程尚未映射过数据文件时（通常是启动时）压缩日志，重载时直接重放日志
+                gateTable = null;
+                gateCache = null;
+                if (!dataFileMapped) {
+                    compactBeforeMapping();
+                }
+                applyTable(openGateTable());
+            } else {
+                applyGates(readStore());
+            }
+        }
+    }
+    
+    /**
+     * 用给定的传送门替换当前全部传送门，并重建相关索引
+     */
+    private void applyGates(List<Gate> loaded) {
+        gateTable = null;
+        gateCache = null;
+        deletedGates.clear();
         gates.clear();
-        FileConfiguration dataConfig = configManager.getDataConfig();
-        ConfigurationSection gatesSection = dataConfig.getConfigurationSection("gates");
-        
-        if (gatesSection == null) {
-            return;
+        for (Gate gate : loaded) {
+            gates.put(gate.getConfigName(), gate);
+            if (configManager.isDebugEnabled()) {
+                plugin.getLogger().info("已加载传送门: " + gate.getConfigName() + " (所有者: " + gate.getOwners().size() + ", 日志: " + gate.isLogEnabled() + ")");
+            }
         }
-        
-        for (String gateName : gatesSection.getKeys(false)) {
-            try {
-                ConfigurationSection gateSection = gatesSection.getConfigurationSection(gateName);
-                if (gateSection == null) continue;
-                
-                String displayName = gateSection.getString("display-name", gateName);
-                String corner1Str = gateSection.getString("corner1");
-                String corner2Str = gateSection.getString("corner2");
-                
-                if (corner1Str == null || corner2Str == null) {
-                    plugin.getLogger().warning("传送门 " + gateName + " 缺少角点坐标，跳过加载");
-                    continue;
-                }
-                
-                Location3D corner1 = Location3D.fromString(corner1Str);
-                Location3D corner2 = Location3D.fromString(corner2Str);
-                Gate gate = new Gate(gateName, displayName, corner1, corner2);
-                
-                // 加载条件
-                ConfigurationSection conditionsSection = gateSection.getConfigurationSection("conditions");
-                if (conditionsSection != null) {
-                    for (String conditionKey : conditionsSection.getKeys(false)) {
-                        try {
-                            GateCondition.ConditionType conditionType = GateCondition.ConditionType.fromKey(conditionKey);
-                            if (conditionType == null) continue;
-                            
-                            ConfigurationSection conditionSection = conditionsSection.getConfigurationSection(conditionKey);
-                            if (conditionSection == null) continue;
-                            
-                            String judgeTypeStr = conditionSection.getString("judge-type");
-                            String value = conditionSection.getString("value");
-                            String operatorStr = conditionSection.getString("operator");
-                            
-                            GateCondition.JudgeType judgeType = GateCondition.JudgeType.fromKey(judgeTypeStr);
-                            GateCondition.CompareOperator operator = null;
-                            if (operatorStr != null) {
-                                operator = GateCondition.CompareOperator.fromSymbol(operatorStr);
-                            }
-                            
-                            if (judgeType != null && value != null) {
-                                GateCondition condition = new GateCondition(conditionType, judgeType, operator, value);
-                                gate.addCondition(condition);
-                            }
-                        } catch (Exception e) {
-                            plugin.getLogger().log(Level.WARNING, "加载传送门 " + gateName + " 的条件时出错", e);
-                        }
-                    }
-                }
 
-                // 加载所有者信息
-                List<String> ownerStrings = gateSection.getStringList("owners");
-                if (ownerStrings != null && !ownerStrings.isEmpty()) {
-                    List<UUID> owners = new ArrayList<>();
-                    for (String ownerString : ownerStrings) {
-                        try {
-                            UUID ownerId = UUID.fromString(ownerString);
-                            owners.add(ownerId);
-                        } catch (IllegalArgumentException e) {
-                            plugin.getLogger().warning("传送门 " + gateName + " 的所有者UUID格式错误: " + ownerString);
-                        }
-                    }
-                    gate.setOwners(owners);
-                }
+        // 旧的传送门对象已失效，清空玩家归属记录
+        playerGateTracker.clear();
 
-                // 加载日志功能状态
-                boolean logEnabled = gateSection.getBoolean("log-enabled", false);
-                gate.setLogEnabled(logEnabled);
+        // 重建空间索引
+        spatialIndexManager.rebuildIndex(gates.values());
 
-                gates.put(gateName, gate);
-                if (configManager.isDebugEnabled()) {
-                    plugin.getLogger().info("已加载传送门: " + gateName + " (所有者: " + gate.getOwners().size() + ", 日志: " + gate.isLogEnabled() + ")");
-                }
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.WARNING, "加载传送门 " + gateName + " 时出错", e);
+        plugin.getLogger().info("已加载 " + gates.size() + " 个传送门");
+        if (configManager.isDebugEnabled()) {
+            plugin.getLogger().info(spatialIndexManager.getStats());
+        }
+    }
+    
+    /**
+     * 切换到延迟加载模式：以记录表为基础，重放变更日志后重建索引
+     */
+    private void applyTable(GateTable table) {
+        Map<String, Gate> changed = new LinkedHashMap<>();
+        Set<String> deleted = new HashSet<>();
+        try {
+            int replayed = gateJournal.replay(changed, deleted);
+            if (replayed > 0 && configManager.isDebugEnabled()) {
+                plugin.getLogger().info("已重放 " + replayed + " 条传送门变更日志");
             }
+        } catch (IOException e) {
+            moveAside(gateJournal.getFile(), e);
         }
 
-        // 重建空间索引
-        spatialIndexManager.clear();
-        for (Gate gate : gates.values()) {
-            spatialIndexManager.addGate(gate);
+        gates.clear();
+        gates.putAll(changed);
+        deletedGates.clear();
+        deletedGates.addAll(deleted);
+        int mappedOnly = 0;
+        for (int i = 0; i < table.size(); i++) {
+            String name = table.getName(i);
+            if (!gates.containsKey(name) && !deletedGates.contains(name)) {
+                mappedOnly++;
+            }
         }
+        mappedOnlyCount = mappedOnly;
+        gateCache = new GateCache(configManager.getMmapCacheSize(), playerGateTracker);
+        gateTable = table;
+        playerGateTracker.clear();
 
-        plugin.getLogger().info("已加载 " + gates.size() + " 个传送门");
+        rebuildIndex();
+
+        plugin.getLogger().info("已映射 " + getGateCount() + " 个传送门（常驻 " + gates.size() + " 个，映射 " +
+            table.getMappedBytes() / 1024 + " KB）");
         if (configManager.isDebugEnabled()) {
             plugin.getLogger().info(spatialIndexManager.getStats());
         }
     }
     
     /**
-     * 保存传送门到数据文件
+     * 内存映射模式下的日志压缩，只在本进程首次打开记录表之前进行
+     * 数据文件一旦被映射，直到映射被GC回收前都不能保证可以替换（部分系统如Windows不允许替换已映射的文件），
+     * 之后的日志压缩推迟到下次启动
      */
-    public void saveGates() {
-        FileConfiguration dataConfig = configManager.getDataConfig();
-        
-        // 清除现有数据
-        dataConfig.set("gates", null);
-        
+    private void compactBeforeMapping() {
+        try {
+            if (gateJournal.countEntries() < configManager.getJournalCompactThreshold()) {
+                return;
+            }
+            List<Gate> all = readStore();
+            gateStore.save(all);
+            gateJournal.reset();
+            if (configManager.isDebugEnabled()) {
+                plugin.getLogger().info("已将 " + all.size() + " 个传送门写回 " + gateStore.getFile().getName());
+            }
+        } catch (IOException e) {
+            // 日志保持不变，打开记录表后照常重放
+            plugin.getLogger().log(Level.WARNING, "压缩传送门变更日志失败，变更仍保存在日志中", e);
+        }
+    }
+    
+    /**
+     * 打开内存映射记录表，必要时先迁移旧的data.yml
+     */
+    private GateTable openGateTable() {
+        MappedGateStore store = (MappedGateStore) gateStore;
+        try {
+            migrateLegacyFile();
+            GateTable table = store.openTable();
+            dataFileMapped = true;
+            return table;
+        } catch (IOException e) {
+            moveAside(store.getFile(), e);
+            return GateTable.EMPTY;
+        }
+    }
+    
+    /**
+     * 用当前全部传送门重建空间索引
+     * 延迟加载模式下直接从记录表的包围盒构建，不解码任何传送门
+     */
+    public void rebuildIndex() {
+        GateTable table = gateTable;
+        if (table == null) {
+            spatialIndexManager.rebuildIndex(gates.values());
+            return;
+        }
+
+        Map<String, RangeArray> entriesByWorld = new HashMap<>();
+        for (int i = 0; i < table.size(); i++) {
+            String name = table.getName(i);
+            if (gates.containsKey(name) || deletedGates.contains(name)) {
+                continue;
+            }
+            entriesByWorld.computeIfAbsent(table.getWorldName(i), k -> new RangeArray()).add(
+                table.getMinX(i), table.getMinY(i), table.getMinZ(i),
+                table.getMaxX(i), table.getMaxY(i), table.getMaxZ(i), name);
+        }
         for (Gate gate : gates.values()) {
-            String path = "gates." + gate.getConfigName();
-            dataConfig.set(path + ".display-name", gate.getDisplayName());
-            dataConfig.set(path + ".corner1", gate.getCorner1().toString());
-            dataConfig.set(path + ".corner2", gate.getCorner2().toString());
-            
-            // 保存条件
-            Map<GateCondition.ConditionType, GateCondition> conditions = gate.getConditions();
-            for (Map.Entry<GateCondition.ConditionType, GateCondition> entry : conditions.entrySet()) {
-                GateCondition condition = entry.getValue();
-                String conditionPath = path + ".conditions." + condition.getConditionType().getKey();
+            RangeArray entries = entriesByWorld.computeIfAbsent(gate.getCorner1().getWorldName(), k -> new RangeArray());
+            SpatialIndexManager.addGateRange(entries, gate, gate.getConfigName());
+        }
+        spatialIndexManager.rebuildIndex(entriesByWorld);
+    }
+    
+    /**
+     * 根据配置创建传送门存储
+     */
+    private GateStore createGateStore() {
+        String type = configManager.getStorageType();
+        if (YamlGateStore.TYPE.equalsIgnoreCase(type)) {
+            return new YamlGateStore(new File(plugin.getDataFolder(), YAML_DATA_FILE), plugin.getLogger());
+        }
+        if (MappedGateStore.TYPE.equalsIgnoreCase(type)) {
+            return new MappedGateStore(new File(plugin.getDataFolder(), BINARY_DATA_FILE), plugin.getLogger());
+        }
+        if (!BinaryGateStore.TYPE.equalsIgnoreCase(type)) {
+            plugin.getLogger().warning("无效的存储类型配置: " + type + "，使用 " + BinaryGateStore.TYPE);
+        }
+        return new BinaryGateStore(new File(plugin.getDataFolder(), BINARY_DATA_FILE), plugin.getLogger());
+    }
+    
+    /**
+     * 从当前存储读取传送门，并重放变更日志
+     */
+    private List<Gate> readStore() {
+        List<Gate> loaded = readBaseFile();
+        if (gateJournal == null) {
+            return loaded;
+        }
+
+        Map<String, Gate> merged = new LinkedHashMap<>();
+        for (Gate gate : loaded) {
+            merged.put(gate.getConfigName(), gate);
+        }
+        try {
+            int replayed = gateJournal.replay(merged);
+            if (replayed > 0 && configManager.isDebugEnabled()) {
+                plugin.getLogger().info("已重放 " + replayed + " 条传送门变更日志");
+            }
+        } catch (IOException e) {
+            moveAside(gateJournal.getFile(), e);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * 读取基础数据文件
+     * 二进制数据文件不存在而旧的data.yml存在时，自动迁移到二进制格式
+     * 数据文件部分损坏时先备份原文件再使用可读取的部分，之后的压缩不会丢失原有数据
+     */
+    private List<Gate> readBaseFile() {
+        try {
+            List<Gate> migrated = migrateLegacyFile();
+            return migrated != null ? migrated : gateStore.load();
+        } catch (PartialLoadException e) {
+            if (copyAside(gateStore.getFile(), e)) {
+                return e.getLoaded();
+            }
+            moveAside(gateStore.getFile(), e);
+            return new ArrayList<>();
+        } catch (IOException e) {
+            moveAside(gateStore.getFile(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 二进制数据文件不存在而旧的data.yml存在时，迁移到二进制格式
+     *
+     * @return 迁移的传送门，未迁移时返回null
+     */
+    private List<Gate> migrateLegacyFile() throws IOException {
+        File file = gateStore.getFile();
+        if (!(gateStore instanceof BinaryGateStore) || file.exists()) {
+            return null;
+        }
+        File legacyFile = new File(plugin.getDataFolder(), YAML_DATA_FILE);
+        if (!legacyFile.exists()) {
+            return null;
+        }
+        List<Gate> migrated = new YamlGateStore(legacyFile, plugin.getLogger()).load();
+        gateStore.save(migrated);
+        plugin.getLogger().info("已将 " + migrated.size() + " 个传送门从 " + YAML_DATA_FILE + " 迁移到 " + file.getName());
+        return migrated;
+    }
+
+    /**
+     * 备份部分损坏的文件，原文件保持不变
+     *
+     * @return 是否备份成功
+     */
+    private boolean copyAside(File file, PartialLoadException cause) {
+        File broken = new File(file.getParentFile(), file.getName() + ".broken-" + System.currentTimeMillis());
+        try {
+            Files.copy(file.toPath(), broken.toPath());
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "备份部分损坏的数据文件 " + file.getName() + " 失败", e);
+            return false;
+        }
+        plugin.getLogger().log(Level.SEVERE, "传送门数据文件 " + file.getName() + " 部分损坏，已加载可读取的 " +
+            cause.getLoaded().size() + " 个传送门，原文件已备份为 " + broken.getName(), cause);
+        return true;
+    }
+    
+    /**
+     * 保留无法读取的文件，避免后续保存覆盖原有数据
+     */
+    private void moveAside(File file, IOException cause) {
+        File broken = new File(file.getParentFile(), file.getName() + ".broken-" + System.currentTimeMillis());
+        plugin.getLogger().log(Level.SEVERE, "无法读取传送门数据文件 " + file.getName() + "，已重命名为 " + broken.getName(), cause);
+        if (!file.renameTo(broken)) {
+            plugin.getLogger().severe("重命名数据文件失败: " + file.getName());
+        }
+    }
+    
+    /**
+     * 标记传送门有未保存的变更（创建、编辑或删除后调用）
+     * 
+     * @param configName 传送门配置名
+     */
+    public void markDirty(String configName) {
+        // 延迟加载模式下被修改的传送门转为常驻，保证保存前不会被缓存淘汰
+        GateCache cache = gateCache;
+        if (cache != null) {
+            Gate gate = cache.remove(configName);
+            if (gate != null && gates.putIfAbsent(configName, gate) == null) {
+                mappedOnlyCount--;
+            }
+        }
+        dirtyGates.add(configName);
+    }
+    
+    /**
+     * 保存有变更的传送门
+     * 二进制存储下只向变更日志追加这些传送门的记录，日志条目达到压缩阈值时写回基础文件；
+     * YAML存储下整体重写data.yml。没有变更时不做任何事。
+     */
+    public void saveGates() {
+        synchronized (saveLock) {
+            if (dirtyGates.isEmpty()) {
+                return;
+            }
 
-                dataConfig.set(conditionPath + ".judge-type", condition.getJudgeType().getKey());
-                dataConfig.set(conditionPath + ".value", condition.getValue());
-                if (condition.getCompareOperator() != null) {
-                    dataConfig.set(conditionPath + ".operator", condition.getCompareOperator().getSymbol());
+            List<Gate> updated = new ArrayList<>();
+            List<String> deleted = new ArrayList<>();
+            for (Iterator<String> it = dirtyGates.iterator(); it.hasNext(); ) {
+                String name = it.next();
+                it.remove();
+                Gate gate = gates.get(name);
+                if (gate != null) {
+                    updated.add(gate);
+                } else {
+                    deleted.add(name);
                 }
             }
 
-            // 保存所有者信息
-            List<UUID> owners = gate.getOwners();
-            if (!owners.isEmpty()) {
-                List<String> ownerStrings = new ArrayList<>();
-                for (UUID ownerId : owners) {
-                    ownerStrings.add(ownerId.toString());
+            try {
+                if (gateJournal == null) {
+                    gateStore.save(snapshotGates());
+                } else {
+                    gateJournal.append(updated, deleted);
                 }
-                dataConfig.set(path + ".owners", ownerStrings);
+            } catch (IOException e) {
+                // 恢复变更标记，下次保存时重试
+                for (Gate gate : updated) {
+                    dirtyGates.add(gate.getConfigName());
+                }
+                dirtyGates.addAll(deleted);
+                plugin.getLogger().log(Level.SEVERE, "无法保存传送门数据", e);
+                return;
             }
 
-            // 保存日志功能状态
-            dataConfig.set(path + ".log-enabled", gate.isLogEnabled());
+            // 变更已写入日志，压缩失败时保留日志等待下次压缩，不再恢复变更标记
+            // 内存映射模式下数据文件仍被映射，压缩推迟到下次启动（见compactBeforeMapping）
+            if (gateJournal != null && !(gateStore instanceof MappedGateStore)
+                    && gateJournal.getEntryCount() >= configManager.getJournalCompactThreshold()) {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    plugin.getLogger().log(Level.WARNING, "压缩传送门变更日志失败，变更仍保存在日志中", e);
+                }
+            }
+
+            if (configManager.isDebugEnabled()) {
+                plugin.getLogger().info("已保存 " + updated.size() + " 个传送门变更，" + deleted.size() + " 个删除");
+            }
+        }
+    }
+    
+    /**
+     * 将全部传送门写回基础数据文件并清空变更日志
+     */
+    public void saveAllGates() {
+        synchronized (saveLock) {
+            dirtyGates.clear();
+            try {
+                compact();
+            } catch (IOException e) {
+                dirtyGates.addAll(getGateNames());
+                plugin.getLogger().log(Level.SEVERE, "无法保存传送门数据", e);
+            }
+        }
+    }
+    
+    /**
+     * 压缩：写回基础文件后清空日志（调用方需持有saveLock）
+     * 两步之间中断时日志仍可重放到新的基础文件上，结果一致
+     */
+    private void compact() throws IOException {
+        List<Gate> snapshot = snapshotGates();
+        gateStore.save(snapshot);
+        if (gateJournal != null) {
+            gateJournal.reset();
         }
-        
-        configManager.saveData();
         if (configManager.isDebugEnabled()) {
-            plugin.getLogger().info("已保存 " + gates.size() + " 个传送门");
+            plugin.getLogger().info("已将 " + snapshot.size() + " 个传送门写回 " + gateStore.getFile().getName());
+        }
+    }
+    
+    /**
+     * 导入/导出完成回调，总是在主线程调用
+     */
+    public interface TransferCallback {
+        /**
+         * @param count 导入或导出的传送门数量
+         * @param error 失败时的异常，成功时为null
+         */
+        void onComplete(int count, Exception error);
+    }
+    
+    /**
+     * 导入/导出操作，在持久化线程上持有saveLock执行
+     */
+    private interface Transfer {
+        int run() throws IOException;
+    }
+    
+    /**
+     * 在持久化线程上将全部传送门导出为YAML文件，完成后在主线程回调
+     * 
+     * @param file 目标文件
+     * @param callback 完成回调，参数为导出的传送门数量
+     */
+    public void exportGates(File file, TransferCallback callback) {
+        submitTransfer(() -> {
+            List<Gate> snapshot = snapshotGates();
+            new YamlGateStore(file, plugin.getLogger()).save(snapshot);
+            return snapshot.size();
+        }, callback);
+    }
+    
+    /**
+     * 从YAML文件导入传送门，替换当前全部传送门并写入当前存储，完成后在主线程回调
+     * 文件在持久化线程上解析，替换在主线程进行（与移动检测等读取方不并发），之后再提交写入
+     * 
+     * @param file 源文件
+     * @param callback 完成回调，参数为导入的传送门数量
+     */
+    public void importGates(File file, TransferCallback callback) {
+        boolean submitted = saveScheduler.execute(() -> {
+            List<Gate> imported;
+            try {
+                imported = new YamlGateStore(file, plugin.getLogger()).load();
+            } catch (Exception e) {
+                completeTransfer(callback, 0, e);
+                return;
+            }
+            if (!plugin.isEnabled()) {
+                return;
+            }
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                replaceGates(imported);
+                submitTransfer(() -> {
+                    if (!(gateStore instanceof MappedGateStore)) {
+                        saveAllGates();
+                    } else {
+                        saveGates();
+                    }
+                    return imported.size();
+                }, callback);
+            });
+        });
+        if (!submitted) {
+            completeTransfer(callback, 0, new IOException("持久化线程已关闭"));
+        }
+    }
+    
+    /**
+     * 用导入的传送门替换当前全部传送门（主线程调用）
+     * 内存映射模式下不替换仍被映射的数据文件：原有和导入的传送门全部标记为变更，写入变更日志。
+     * 此时导入的传送门全部常驻内存，且运行期间不压缩日志，直到下次启动压缩日志后才恢复延迟加载
+     */
+    private void replaceGates(List<Gate> imported) {
+        synchronized (saveLock) {
+            if (!(gateStore instanceof MappedGateStore)) {
+                applyGates(imported);
+                return;
+            }
+            
+            Set<String> previous = new HashSet<>(getGateNames());
+            applyGates(imported);
+            dirtyGates.addAll(previous);
+            dirtyGates.addAll(gates.keySet());
+            plugin.getLogger().warning("内存映射存储下导入的 " + imported.size() + " 个传送门将常驻内存并写入 " +
+                JOURNAL_FILE + "，下次启动压缩日志后恢复按需解码");
+        }
+    }
+    
+    /**
+     * 提交导入/导出操作到持久化线程，与保存按提交顺序串行执行
+     * 持久化线程已关闭时直接以失败回调
+     */
+    private void submitTransfer(Transfer transfer, TransferCallback callback) {
+        if (!saveScheduler.execute(() -> runTransfer(transfer, callback))) {
+            completeTransfer(callback, 0, new IOException("持久化线程已关闭"));
+        }
+    }
+    
+    private void runTransfer(Transfer transfer, TransferCallback callback) {
+        int count = 0;
+        Exception error = null;
+        synchronized (saveLock) {
+            try {
+                count = transfer.run();
+            } catch (Exception e) {
+                error = e;
+            }
+        }
+        completeTransfer(callback, count, error);
+    }
+    
+    /**
+     * 回到主线程报告结果，插件已禁用时无法调度，结果只记录到日志
+     */
+    private void completeTransfer(TransferCallback callback, int count, Exception error) {
+        if (!plugin.isEnabled()) {
+            if (error != null) {
+                plugin.getLogger().log(Level.WARNING, "导入/导出传送门数据失败", error);
+            }
+            return;
         }
+        plugin.getServer().getScheduler().runTask(plugin, () -> callback.onComplete(count, error));
     }
     
     /**
-     * 异步保存传送门
+     * 请求异步保存传送门
+     * 连续的请求会被合并，最迟在save-max-delay后或待保存修改达到save-max-pending时写入
      */
     public void saveGatesAsync() {
-        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, this::saveGates);
+        saveScheduler.requestSave();
+    }
+    
+    /**
+     * 立即在持久化线程上写入所有未保存的变更
+     */
+    public void flushGatesAsync() {
+        saveScheduler.flush();
+    }
+    
+    /**
+     * 提交写入任务到持久化线程
+     * 持久化线程已关闭时忽略，剩余变更由shutdown()同步写入
+     */
+    private void submitWrite(Runnable task) {
+        saveScheduler.execute(task);
+    }
+    
+    /**
+     * 关闭持久化线程并同步写入剩余变更（插件禁用时调用）
+     */
+    public void shutdown() {
+        saveScheduler.shutdown(10);
+    }
+    
+    /**
+     * 获取合并保存调度器
+     */
+    public GateSaveScheduler getSaveScheduler() {
+        return saveScheduler;
     }
     
     /**
@@ -198,11 +621,13 @@ public class GateManager {
      */
     private void startAutoSaveTask() {
         int interval = configManager.getAutoSaveInterval() * 60 * 20; // 转换为tick
-        plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, this::autoSaveWithCleanup, interval, interval);
+        plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin,
+            () -> submitWrite(this::autoSaveWithCleanup), interval, interval);
     }
 
     /**
      * 自动保存并执行内存清理
+     * 没有未保存的变更时保存为空操作
      */
     private void autoSaveWithCleanup() {
         try {
@@ -225,40 +650,274 @@ public class GateManager {
     
     // 传送门操作方法
     public boolean createGate(String configName, String displayName, Location3D corner1, Location3D corner2) {
-        if (gates.containsKey(configName)) {
+        if (getGate(configName) != null) {
             return false;
         }
-        if (gates.size() >= configManager.getMaxGates()) {
+        if (getGateCount() >= configManager.getMaxGates()) {
             return false;
         }
         
         Gate gate = new Gate(configName, displayName, corner1, corner2);
         gates.put(configName, gate);
-        spatialIndexManager.addGate(gate);
+        if (gateTable == null) {
+            spatialIndexManager.addGate(gate);
+        } else {
+            spatialIndexManager.addEntry(corner1.getWorldName(), SpatialIndexManager.createGateRange(gate), configName);
+        }
+        markDirty(configName);
         saveGatesAsync();
         return true;
     }
     
     public Gate getGate(String configName) {
-        return gates.get(configName);
+        Gate gate = gates.get(configName);
+        // 先读缓存再读记录表：切换模式时记录表先于缓存置空，读到记录表时缓存一定存在
+        GateCache cache = gateCache;
+        GateTable table = gateTable;
+        if (gate != null || table == null || deletedGates.contains(configName)) {
+            return gate;
+        }
+        
+        // 延迟加载：先查缓存，再从映射区解码
+        gate = cache.get(configName);
+        if (gate != null) {
+            return gate;
+        }
+        int record = table.indexOf(configName);
+        if (record < 0) {
+            return null;
+        }
+        try {
+            gate = table.materialize(record);
+        } catch (IOException e) {
+            plugin.getLogger().warning("无法解析传送门记录 " + configName + ": " + e.getMessage());
+            return null;
+        }
+        cache.put(gate);
+        return gate;
     }
     
     public boolean deleteGate(String configName) {
-        Gate removed = gates.remove(configName);
-        if (removed != null) {
+        Gate removed = getGate(configName);
+        if (removed == null) {
+            return false;
+        }
+        boolean resident = gates.remove(configName) != null;
+        GateTable table = gateTable;
+        if (table == null) {
             spatialIndexManager.removeGate(removed);
-            saveGatesAsync();
-            return true;
+        } else {
+            if (!resident) {
+                mappedOnlyCount--;
+            }
+            gateCache.remove(configName);
+            deletedGates.add(configName);
+            spatialIndexManager.removeEntry(removed.getCorner1().getWorldName(),
+                SpatialIndexManager.createGateRange(removed), configName);
+        }
+        playerGateTracker.removeGate(removed);
+        markDirty(configName);
+        saveGatesAsync();
+        return true;
+    }
+    
+    /**
+     * 查询指定方块坐标的传送门，结果追加到调用方提供的列表中
+     * 延迟加载模式下索引只保存名称，命中的传送门在此解码
+     * 
+     * @param worldId 世界编号（见SpatialIndexManager.getWorldId）
+     * @param result 结果列表（可重复使用）
+     */
+    public void queryGates(int worldId, int x, int y, int z, List<Gate> result) {
+        if (gateTable == null) {
+            spatialIndexManager.query(worldId, x, y, z, result);
+            return;
+        }
+        
+        List<Object> names = queryBuffer.get();
+        names.clear();
+        spatialIndexManager.query(worldId, x, y, z, names);
+        for (int i = 0; i < names.size(); i++) {
+            Gate gate = getGate((String) names.get(i));
+            if (gate != null) {
+                result.add(gate);
+            }
+        }
+    }
+
+    /**
+     * 查询被线段扫过的传送门，结果追加到调用方提供的列表中
+     * 用于检测高速移动的玩家在两次移动事件之间穿过的传送门
+     * 
+     * @param worldId 世界编号（见SpatialIndexManager.getWorldId）
+     * @param segment 玩家本次移动的路径
+     * @param result 结果列表（可重复使用）
+     */
+    public void queryGates(int worldId, Segment3D segment, List<Gate> result) {
+        if (gateTable == null) {
+            spatialIndexManager.querySwept(worldId, segment, result);
+            return;
+        }
+        
+        List<Object> names = queryBuffer.get();
+        names.clear();
+        spatialIndexManager.querySwept(worldId, segment, names);
+        for (int i = 0; i < names.size(); i++) {
+            Gate gate = getGate((String) names.get(i));
+            if (gate != null) {
+                result.add(gate);
+            }
         }
-        return false;
     }
     
+    /**
+     * 批量查询同一世界中多个方块坐标的传送门
+     * 第i个坐标的结果位于result中[ends[i-1], ends[i])区间（i为0时从0开始）
+     *
+     * @param worldId 世界编号（见SpatialIndexManager.getWorldId）
+     * @param coords 坐标数组，每个坐标占3个元素：x, y, z
+     * @param count 坐标数量
+     * @param result 结果列表（可重复使用）
+     * @param ends 输出：每个坐标的结果在列表中的结束位置，长度至少为count
+     */
+    public void queryGates(int worldId, int[] coords, int count, List<Gate> result, int[] ends) {
+        if (gateTable == null) {
+            spatialIndexManager.queryBatch(worldId, coords, count, result, ends);
+            return;
+        }
+
+        List<Object> names = queryBuffer.get();
+        names.clear();
+        spatialIndexManager.queryBatch(worldId, coords, count, names, ends);
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            for (int j = start; j < ends[i]; j++) {
+                Gate gate = getGate((String) names.get(j));
+                if (gate != null) {
+                    result.add(gate);
+                }
+            }
+            start = ends[i];
+            ends[i] = result.size();
+        }
+    }
+
+    /**
+     * 获取查询代数，用于判断缓存的查询结果是否仍然有效
+     * 空间索引发生变化，或延迟加载模式下有传送门被淘汰（再次查询会得到新的对象）时改变
+     */
+    public long getQueryGeneration() {
+        long generation = spatialIndexManager.getGeneration() << 32;
+        GateCache cache = gateCache;
+        return cache != null ? generation + (cache.getEvictions() & 0xFFFFFFFFL) : generation;
+    }
+    
+    /**
+     * 获取全部传送门名称
+     * 延迟加载模式下会复制全部名称，命令补全等频繁调用的场景请使用getGateNames(String)
+     */
     public Set<String> getGateNames() {
-        return gates.keySet();
+        GateTable table = gateTable;
+        if (table == null) {
+            return gates.keySet();
+        }
+        
+        Set<String> names = new HashSet<>(gates.keySet());
+        for (int i = 0; i < table.size(); i++) {
+            String name = table.getName(i);
+            if (!deletedGates.contains(name)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+    
+    /**
+     * 获取名称以指定前缀开头（不区分大小写）的传送门名称，用于命令补全
+     * 延迟加载模式下在按名称排序的记录表中二分查找前缀，只遍历匹配的记录
+     * 
+     * @param prefix 前缀
+     * @return 匹配的名称列表
+     */
+    public List<String> getGateNames(String prefix) {
+        List<String> result = new ArrayList<>();
+        for (String name : gates.keySet()) {
+            if (name.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                result.add(name);
+            }
+        }
+        
+        GateTable table = gateTable;
+        if (table != null) {
+            for (int i = table.firstWithPrefix(prefix); table.nameStartsWith(i, prefix); i++) {
+                String name = table.getName(i);
+                if (!gates.containsKey(name) && !deletedGates.contains(name)) {
+                    result.add(name);
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 获取传送门总数
+     * 延迟加载模式下为常驻传送门数加上只存在于记录表中的传送门数，不遍历记录表
+     */
+    public int getGateCount() {
+        GateTable table = gateTable;
+        return table == null ? gates.size() : gates.size() + mappedOnlyCount;
     }
     
+    /**
+     * 获取常驻内存的传送门数量（包括延迟加载缓存中的传送门）
+     */
+    public int getResidentGateCount() {
+        GateCache cache = gateCache;
+        return gates.size() + (cache != null ? cache.size() : 0);
+    }
+    
+    /**
+     * 获取全部传送门
+     * 延迟加载模式下会解码所有未常驻的传送门（不放入缓存），只应在管理操作中使用
+     */
     public Map<String, Gate> getAllGates() {
-        return new HashMap<>(gates);
+        Map<String, Gate> all = new HashMap<>();
+        for (Gate gate : snapshotGates()) {
+            all.put(gate.getConfigName(), gate);
+        }
+        return all;
+    }
+    
+    /**
+     * 获取全部传送门的列表，用于保存和导出
+     */
+    private List<Gate> snapshotGates() {
+        GateTable table = gateTable;
+        if (table == null) {
+            return new ArrayList<>(gates.values());
+        }
+        
+        List<Gate> snapshot = new ArrayList<>(gates.values());
+        for (int i = 0; i < table.size(); i++) {
+            String name = table.getName(i);
+            if (gates.containsKey(name) || deletedGates.contains(name)) {
+                continue;
+            }
+            Gate cached = gateCache.get(name);
+            try {
+                snapshot.add(cached != null ? cached : table.materialize(i));
+            } catch (IOException e) {
+                plugin.getLogger().warning("无法解析传送门记录 " + name + ": " + e.getMessage());
+            }
+        }
+        return snapshot;
+    }
+    
+    /**
+     * 获取延迟加载缓存，全部常驻时返回null
+     */
+    public GateCache getGateCache() {
+        return gateCache;
     }
     
     // 删除确认相关方法
@@ -291,4 +950,18 @@ public class GateManager {
     public SpatialIndexManager getSpatialIndexManager() {
         return spatialIndexManager;
     }
+
+    /**
+     * 获取当前使用的传送门存储
+     */
+    public GateStore getGateStore() {
+        return gateStore;
+    }
+
+    /**
+     * 获取玩家传送门归属跟踪器
+     */
+    public PlayerGateTracker getPlayerGateTracker() {
+        return playerGateTracker;
+    }
 }
@@ -0,0 +1,168 @@
+package org.plugin.gatetools.manager;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 传送门合并保存调度器
+ * 
+ * 拥有唯一的持久化线程。连续的修改请求会合并为一次保存：
+ * 第一次请求后最多等待maxDelayMillis执行保存，待保存的修改达到maxPending时立即保存。
+ * 
+ * @author NSrank, Augment
+ */
+public class GateSaveScheduler {
+    private final ScheduledThreadPoolExecutor executor;
+    private final Runnable saveAction;
+    private final Logger logger;
+    private final long maxDelayMillis;
+    private final int maxPending;
+    
+    private final AtomicInteger pendingMutations = new AtomicInteger();
+    private final AtomicLong completedSaves = new AtomicLong();
+    private final AtomicLong coalescedMutations = new AtomicLong();
+    
+    // 已计划的保存任务，只在持有this锁时访问
+    private ScheduledFuture<?> scheduledSave;
+    
+    /**
+     * @param saveAction 保存操作，总是在持久化线程（或关闭时的调用线程）上执行
+     * @param logger 日志记录器
+     * @param maxDelayMillis 第一次修改到执行保存的最大延迟
+     * @param maxPending 待保存修改达到此数量时立即保存
+     */
+    public GateSaveScheduler(Runnable saveAction, Logger logger, long maxDelayMillis, int maxPending) {
+        this.saveAction = saveAction;
+        this.logger = logger;
+        this.maxDelayMillis = Math.max(0, maxDelayMillis);
+        this.maxPending = Math.max(1, maxPending);
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "GateTools-Persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+    
+    /**
+     * 记录一次修改并安排合并保存
+     */
+    public void requestSave() {
+        int pending = pendingMutations.incrementAndGet();
+        synchronized (this) {
+            if (pending >= maxPending) {
+                scheduleSave(0);
+            } else if (scheduledSave == null) {
+                scheduleSave(maxDelayMillis);
+            }
+        }
+    }
+    
+    /**
+     * 立即在持久化线程上保存
+     */
+    public void flush() {
+        synchronized (this) {
+            scheduleSave(0);
+        }
+    }
+    
+    /**
+     * 在持久化线程上执行其他写入任务，与保存按提交顺序串行执行
+     * 
+     * @return 是否已提交，持久化线程已关闭时返回false
+     */
+    public boolean execute(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            logger.fine("持久化线程已关闭，跳过写入任务");
+            return false;
+        }
+    }
+    
+    /**
+     * 安排保存（调用方需持有this锁）
+     * 已有更早或同时执行的计划时不重复安排
+     */
+    private void scheduleSave(long delayMillis) {
+        if (scheduledSave != null) {
+            if (scheduledSave.getDelay(TimeUnit.MILLISECONDS) <= delayMillis) {
+                return;
+            }
+            scheduledSave.cancel(false);
+        }
+        try {
+            scheduledSave = executor.schedule(this::runSave, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 已关闭，剩余修改由shutdown()同步保存
+            scheduledSave = null;
+        }
+    }
+    
+    private void runSave() {
+        synchronized (this) {
+            scheduledSave = null;
+        }
+        int mutations = pendingMutations.getAndSet(0);
+        try {
+            saveAction.run();
+            completedSaves.incrementAndGet();
+            coalescedMutations.addAndGet(mutations);
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "保存传送门数据时出错", e);
+        }
+    }
+    
+    /**
+     * 关闭持久化线程并在当前线程同步保存剩余修改
+     * 
+     * @param timeoutSeconds 等待已提交任务完成的最长时间
+     */
+    public void shutdown(long timeoutSeconds) {
+        synchronized (this) {
+            if (scheduledSave != null) {
+                scheduledSave.cancel(false);
+                scheduledSave = null;
+            }
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                logger.warning("等待传送门数据写入超时");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        runSave();
+    }
+    
+    /**
+     * 获取尚未保存的修改数
+     */
+    public int getPendingCount() {
+        return pendingMutations.get();
+    }
+    
+    /**
+     * 获取已完成的保存次数
+     */
+    public long getCompletedCount() {
+        return completedSaves.get();
+    }
+    
+    /**
+     * 获取已保存的修改总数（与保存次数之比即合并率）
+     */
+    public long getCoalescedCount() {
+        return coalescedMutations.get();
+    }
+}
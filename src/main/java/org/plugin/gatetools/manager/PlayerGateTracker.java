@@ -0,0 +1,325 @@
+package org.plugin.gatetools.manager;
+
+import org.plugin.gatetools.model.Gate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 玩家传送门会话表
+ * 按玩家UUID记录其当前所处的传送门和正在确认的传送门，进入/离开检测只需比较前后两次查询结果，
+ * 开销与玩家实际接触的传送门数量成正比，而与服务器传送门总数无关
+ *
+ * 每个玩家的会话是不可变对象，通过 ConcurrentHashMap.compute 原子替换。
+ * ConcurrentHashMap 只锁定玩家所在的桶，不同玩家的更新互不阻塞，没有全局锁，
+ * 监听器、传送回调和异步任务可以在任意线程读写
+ *
+ * @author NSrank, Augment
+ */
+public class PlayerGateTracker {
+    private final ConcurrentHashMap<UUID, Session> sessions = new ConcurrentHashMap<>();
+    // 每个传送门被多少玩家占用（在区域内或正在确认），与会话在同一次 compute 中更新
+    private final ConcurrentHashMap<Gate, Integer> occupancy = new ConcurrentHashMap<>();
+
+    /**
+     * 单个玩家的会话状态（不可变）
+     */
+    private static final class Session {
+        private static final Session EMPTY = new Session(Collections.emptyList(), null, false, 0L);
+
+        private final List<Gate> gates;
+        private final Gate confirming;
+        // 确认的是否为穿过的传送门：玩家不在其中，不会产生离开事件，到期后失效
+        private final boolean crossing;
+        // 穿过确认的失效时间（System.nanoTime），只在crossing为true时有效
+        private final long expiresAt;
+
+        private Session(List<Gate> gates, Gate confirming, boolean crossing, long expiresAt) {
+            this.gates = gates;
+            this.confirming = confirming;
+            this.crossing = crossing;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isEmpty() {
+            return gates.isEmpty() && confirming == null;
+        }
+
+        private boolean references(Gate gate) {
+            return confirming == gate || gates.contains(gate);
+        }
+
+        private boolean isExpired(long now) {
+            return crossing && now - expiresAt >= 0;
+        }
+
+        private Gate activeConfirming() {
+            return confirming != null && !isExpired(System.nanoTime()) ? confirming : null;
+        }
+
+        private Session withGates(List<Gate> newGates) {
+            return new Session(newGates, confirming, crossing, expiresAt);
+        }
+
+        private Session withConfirming(Gate gate) {
+            return new Session(gates, gate, false, 0L);
+        }
+
+        private Session withCrossing(Gate gate, long deadline) {
+            return new Session(gates, gate, true, deadline);
+        }
+
+        private Session without(Gate gate) {
+            List<Gate> remaining = gates;
+            if (gates.contains(gate)) {
+                remaining = new ArrayList<>(gates);
+                remaining.remove(gate);
+                remaining = Collections.unmodifiableList(remaining);
+            }
+            return confirming == gate ? new Session(remaining, null, false, 0L)
+                : new Session(remaining, confirming, crossing, expiresAt);
+        }
+    }
+
+    /**
+     * 用最新查询结果更新玩家所处的传送门
+     * 状态变化写入调用方提供的列表，调用方可重复使用这些列表以避免分配
+     *
+     * @param playerId 玩家UUID
+     * @param currentGates 玩家当前位置的传送门列表
+     * @param entered 输出：新进入的传送门（调用前应为空）
+     * @param left 输出：已离开的传送门（调用前应为空）
+     * @return 是否有状态变化
+     */
+    public boolean update(UUID playerId, List<Gate> currentGates, List<Gate> entered, List<Gate> left) {
+        // 前后都不在任何传送门内，无需处理（最常见的情况，不进入 compute）
+        if (currentGates.isEmpty() && !sessions.containsKey(playerId)) {
+            return false;
+        }
+
+        sessions.compute(playerId, (id, existing) -> {
+            // 顺带清除已过期的穿过确认，使其不再占用传送门
+            Session session = existing;
+            if (session != null && session.isExpired(System.nanoTime())) {
+                session = transition(session, session.withConfirming(null));
+            }
+            List<Gate> previousGates = session != null ? session.gates : Collections.emptyList();
+
+            // 使用下标遍历，避免在热路径上创建迭代器
+            for (int i = 0; i < previousGates.size(); i++) {
+                Gate gate = previousGates.get(i);
+                if (!currentGates.contains(gate)) {
+                    left.add(gate);
+                }
+            }
+            for (int i = 0; i < currentGates.size(); i++) {
+                Gate gate = currentGates.get(i);
+                if (!previousGates.contains(gate)) {
+                    entered.add(gate);
+                }
+            }
+
+            if (entered.isEmpty() && left.isEmpty()) {
+                return session;
+            }
+            Session previous = session != null ? session : Session.EMPTY;
+            List<Gate> gates = currentGates.isEmpty() ? Collections.emptyList() : List.copyOf(currentGates);
+            return transition(previous, previous.withGates(gates));
+        });
+        return !entered.isEmpty() || !left.isEmpty();
+    }
+
+    /**
+     * 标记玩家开始确认所处的传送门，确认状态保持到玩家确认、离开或退出为止
+     * 正在确认的穿过的传送门会被替换；若正是同一个传送门则转为普通确认，不需要再次提示
+     *
+     * @param playerId 玩家UUID
+     * @param gate 传送门
+     * @return 是否需要提示确认，玩家已在确认其所处的其他传送门时返回false
+     */
+    public boolean startConfirming(UUID playerId, Gate gate) {
+        AtomicBoolean started = new AtomicBoolean();
+        sessions.compute(playerId, (id, session) -> {
+            Session previous = session != null ? session : Session.EMPTY;
+            if (previous.confirming != null && !previous.crossing) {
+                return session;
+            }
+            started.set(previous.confirming != gate || previous.isExpired(System.nanoTime()));
+            return transition(previous, previous.withConfirming(gate));
+        });
+        return started.get();
+    }
+
+    /**
+     * 标记玩家开始确认本次移动中穿过的传送门
+     * 玩家不在其中，确认状态在超时后失效，也会被之后进入或穿过的传送门替换
+     *
+     * @param playerId 玩家UUID
+     * @param gate 传送门
+     * @param timeoutNanos 确认有效期（纳秒）
+     * @return 是否需要提示确认，玩家正在确认其所处的传送门或已在确认该传送门时返回false
+     */
+    public boolean startCrossing(UUID playerId, Gate gate, long timeoutNanos) {
+        AtomicBoolean started = new AtomicBoolean();
+        long now = System.nanoTime();
+        sessions.compute(playerId, (id, session) -> {
+            Session previous = session != null ? session : Session.EMPTY;
+            if (previous.confirming != null && !previous.crossing) {
+                return session;
+            }
+            started.set(previous.confirming != gate || previous.isExpired(now));
+            return transition(previous, previous.withCrossing(gate, now + timeoutNanos));
+        });
+        return started.get();
+    }
+
+    /**
+     * 清除玩家的确认状态
+     *
+     * @param playerId 玩家UUID
+     * @return 玩家之前正在确认的传送门，不在确认状态时返回null
+     */
+    public Gate stopConfirming(UUID playerId) {
+        AtomicReference<Gate> stopped = new AtomicReference<>();
+        sessions.computeIfPresent(playerId, (id, session) -> {
+            if (session.confirming == null) {
+                return session;
+            }
+            stopped.set(session.confirming);
+            return transition(session, session.withConfirming(null));
+        });
+        return stopped.get();
+    }
+
+    /**
+     * 获取玩家正在确认的传送门
+     *
+     * @param playerId 玩家UUID
+     * @return 传送门，不在确认状态或穿过确认已过期时返回null
+     */
+    public Gate getConfirmingGate(UUID playerId) {
+        Session session = sessions.get(playerId);
+        return session != null ? session.activeConfirming() : null;
+    }
+
+    /**
+     * 检查玩家是否正在确认指定传送门（已过期的穿过确认不算）
+     */
+    public boolean isConfirming(UUID playerId, Gate gate) {
+        Session session = sessions.get(playerId);
+        return session != null && session.activeConfirming() == gate;
+    }
+
+    /**
+     * 检查是否有玩家在传送门区域内或正在确认该传送门
+     *
+     * @param gate 传送门
+     * @return 是否被占用
+     */
+    public boolean isOccupied(Gate gate) {
+        return occupancy.containsKey(gate);
+    }
+
+    /**
+     * 获取玩家当前所处的传送门
+     *
+     * @param playerId 玩家UUID
+     * @return 传送门列表（只读）
+     */
+    public List<Gate> getGates(UUID playerId) {
+        Session session = sessions.get(playerId);
+        return session != null ? session.gates : Collections.emptyList();
+    }
+
+    /**
+     * 移除玩家的会话（包括确认状态）
+     *
+     * @param playerId 玩家UUID
+     * @return 玩家移除前所处的传送门列表
+     */
+    public List<Gate> removePlayer(UUID playerId) {
+        AtomicReference<List<Gate>> removed = new AtomicReference<>(Collections.emptyList());
+        sessions.computeIfPresent(playerId, (id, session) -> {
+            removed.set(session.gates);
+            return transition(session, Session.EMPTY);
+        });
+        return removed.get();
+    }
+
+    /**
+     * 从所有玩家的会话中移除指定传送门（传送门被删除时调用）
+     *
+     * @param gate 传送门
+     */
+    public void removeGate(Gate gate) {
+        for (UUID playerId : sessions.keySet()) {
+            sessions.computeIfPresent(playerId, (id, session) ->
+                session.references(gate) ? transition(session, session.without(gate)) : session);
+        }
+        occupancy.remove(gate);
+    }
+
+    /**
+     * 清空所有会话（重载传送门时调用，旧的传送门对象不再有效）
+     */
+    public void clear() {
+        sessions.clear();
+        occupancy.clear();
+    }
+
+    /**
+     * 获取正在被跟踪的玩家数量
+     */
+    public int getTrackedPlayerCount() {
+        return sessions.size();
+    }
+
+    /**
+     * 获取被占用的传送门数量
+     */
+    public int getOccupiedGateCount() {
+        return occupancy.size();
+    }
+
+    /**
+     * 在会话替换时更新传送门占用计数，在玩家所在桶的 compute 中调用
+     *
+     * @return 新会话，为空时返回null以移除记录
+     */
+    private Session transition(Session before, Session after) {
+        for (int i = 0; i < before.gates.size(); i++) {
+            Gate gate = before.gates.get(i);
+            if (!after.references(gate)) {
+                release(gate);
+            }
+        }
+        if (before.confirming != null && !before.gates.contains(before.confirming)
+                && !after.references(before.confirming)) {
+            release(before.confirming);
+        }
+        for (int i = 0; i < after.gates.size(); i++) {
+            Gate gate = after.gates.get(i);
+            if (!before.references(gate)) {
+                acquire(gate);
+            }
+        }
+        if (after.confirming != null && !after.gates.contains(after.confirming)
+                && !before.references(after.confirming)) {
+            acquire(after.confirming);
+        }
+        return after.isEmpty() ? null : after;
+    }
+
+    private void acquire(Gate gate) {
+        occupancy.merge(gate, 1, Integer::sum);
+    }
+
+    private void release(Gate gate) {
+        occupancy.computeIfPresent(gate, (g, count) -> count > 1 ? count - 1 : null);
+    }
+}
@@ -16,11 +16,12 @@ public class Gate {
     private final String displayName;
     private final Location3D corner1;
     private final Location3D corner2;
-    private final Map<GateCondition.ConditionType, GateCondition> conditions;
-    private final Set<UUID> playersInside;
-    private final Set<UUID> playersConfirming;
-    private final List<UUID> owners; // 传送门所有者列表（最多2个）
-    private boolean logEnabled; // 是否启用传送日志功能
+    // 条件和所有者以只读快照保存，修改时整体替换，读取时直接返回无需复制
+    private volatile Map<GateCondition.ConditionType, GateCondition> conditions;
+    // 需要检查的条件（不含传送目标），按检查开销从低到高排列，条件变化时重建
+    private volatile List<GateCondition> conditionChain;
+    private volatile List<UUID> owners; // 传送门所有者列表（最多2个）
+    private volatile boolean logEnabled; // 是否启用传送日志功能
     
     /**
      * 构造函数
@@ -35,10 +36,9 @@ public class Gate {
         this.displayName = displayName;
         this.corner1 = corner1;
         this.corner2 = corner2;
-        this.conditions = new HashMap<>();
-        this.playersInside = new HashSet<>();
-        this.playersConfirming = new HashSet<>();
-        this.owners = new ArrayList<>();
+        this.conditions = Collections.unmodifiableMap(new EnumMap<>(GateCondition.ConditionType.class));
+        this.conditionChain = Collections.emptyList();
+        this.owners = Collections.emptyList();
         this.logEnabled = false;
     }
     
@@ -51,9 +51,8 @@ public class Gate {
     public boolean isPlayerInside(Player player) {
         Location loc = player.getLocation();
         
-        // 检查世界是否匹配
-        if (!loc.getWorld().getName().equals(corner1.getWorldName()) ||
-            !loc.getWorld().getName().equals(corner2.getWorldName())) {
+        // 检查世界是否匹配（两个角点在创建时总是位于同一世界，比较一次即可）
+        if (!loc.getWorld().getName().equals(corner1.getWorldName())) {
             return false;
         }
         
@@ -76,8 +75,11 @@ public class Gate {
      * 
      * @param condition 条件
      */
-    public void addCondition(GateCondition condition) {
-        conditions.put(condition.getConditionType(), condition);
+    public synchronized void addCondition(GateCondition condition) {
+        Map<GateCondition.ConditionType, GateCondition> updated = new EnumMap<>(GateCondition.ConditionType.class);
+        updated.putAll(conditions);
+        updated.put(condition.getConditionType(), condition);
+        publishConditions(updated);
     }
     
     /**
@@ -85,8 +87,28 @@ public class Gate {
      * 
      * @param conditionType 条件类型
      */
-    public void removeCondition(GateCondition.ConditionType conditionType) {
-        conditions.remove(conditionType);
+    public synchronized void removeCondition(GateCondition.ConditionType conditionType) {
+        if (!conditions.containsKey(conditionType)) {
+            return;
+        }
+        Map<GateCondition.ConditionType, GateCondition> updated = new EnumMap<>(GateCondition.ConditionType.class);
+        updated.putAll(conditions);
+        updated.remove(conditionType);
+        publishConditions(updated);
+    }
+    
+    /**
+     * 发布新的条件快照，并按条件类型的声明顺序（EnumMap的迭代顺序）重建检查链
+     */
+    private void publishConditions(Map<GateCondition.ConditionType, GateCondition> updated) {
+        List<GateCondition> chain = new ArrayList<>(updated.size());
+        for (GateCondition condition : updated.values()) {
+            if (condition.getConditionType() != GateCondition.ConditionType.TELEPORT) {
+                chain.add(condition);
+            }
+        }
+        conditionChain = Collections.unmodifiableList(chain);
+        conditions = Collections.unmodifiableMap(updated);
     }
     
     /**
@@ -109,98 +131,59 @@ public class Gate {
         return teleportCondition != null ? teleportCondition.getTeleportLocation() : null;
     }
     
-    /**
-     * 玩家进入区域
-     * 
-     * @param playerId 玩家UUID
-     */
-    public void playerEnter(UUID playerId) {
-        playersInside.add(playerId);
-    }
-    
-    /**
-     * 玩家离开区域
-     * 
-     * @param playerId 玩家UUID
-     */
-    public void playerLeave(UUID playerId) {
-        playersInside.remove(playerId);
-        playersConfirming.remove(playerId);
-    }
-    
-    /**
-     * 玩家开始确认传送
-     * 
-     * @param playerId 玩家UUID
-     */
-    public void playerStartConfirming(UUID playerId) {
-        playersConfirming.add(playerId);
-    }
-    
-    /**
-     * 玩家停止确认传送
-     * 
-     * @param playerId 玩家UUID
-     */
-    public void playerStopConfirming(UUID playerId) {
-        playersConfirming.remove(playerId);
-    }
+    // Getters
+    public String getConfigName() { return configName; }
+    public String getDisplayName() { return displayName; }
+    public Location3D getCorner1() { return corner1; }
+    public Location3D getCorner2() { return corner2; }
     
     /**
-     * 检查玩家是否在确认状态
+     * 获取全部条件
      * 
-     * @param playerId 玩家UUID
-     * @return 是否在确认状态
+     * @return 只读的条件快照，修改传送门条件不会影响已返回的快照
      */
-    public boolean isPlayerConfirming(UUID playerId) {
-        return playersConfirming.contains(playerId);
-    }
+    public Map<GateCondition.ConditionType, GateCondition> getConditions() { return conditions; }
     
     /**
-     * 检查玩家是否在区域内（通过UUID）
+     * 获取需要检查的条件（不含传送目标），开销低的条件在前
      * 
-     * @param playerId 玩家UUID
-     * @return 是否在区域内
+     * @return 只读的条件列表
      */
-    public boolean isPlayerInside(UUID playerId) {
-        return playersInside.contains(playerId);
-    }
-    
-    // Getters
-    public String getConfigName() { return configName; }
-    public String getDisplayName() { return displayName; }
-    public Location3D getCorner1() { return corner1; }
-    public Location3D getCorner2() { return corner2; }
-    public Map<GateCondition.ConditionType, GateCondition> getConditions() { return new HashMap<>(conditions); }
-    public Set<UUID> getPlayersInside() { return new HashSet<>(playersInside); }
-    public Set<UUID> getPlayersConfirming() { return new HashSet<>(playersConfirming); }
+    public List<GateCondition> getConditionChain() { return conditionChain; }
 
-    // 所有者相关方法
-    public List<UUID> getOwners() { return new ArrayList<>(owners); }
+    // 所有者相关方法（返回只读快照）
+    public List<UUID> getOwners() { return owners; }
 
-    public void setOwners(List<UUID> newOwners) {
-        this.owners.clear();
+    public synchronized void setOwners(List<UUID> newOwners) {
+        List<UUID> updated = new ArrayList<>(2);
         if (newOwners != null && !newOwners.isEmpty()) {
             // 最多只能设置2个所有者
             int maxOwners = Math.min(newOwners.size(), 2);
             for (int i = 0; i < maxOwners; i++) {
-                this.owners.add(newOwners.get(i));
+                updated.add(newOwners.get(i));
             }
         }
+        this.owners = Collections.unmodifiableList(updated);
     }
 
-    public void addOwner(UUID ownerUuid) {
+    public synchronized void addOwner(UUID ownerUuid) {
         if (ownerUuid != null && !owners.contains(ownerUuid) && owners.size() < 2) {
-            owners.add(ownerUuid);
+            List<UUID> updated = new ArrayList<>(owners);
+            updated.add(ownerUuid);
+            this.owners = Collections.unmodifiableList(updated);
         }
     }
 
-    public void removeOwner(UUID ownerUuid) {
-        owners.remove(ownerUuid);
+    public synchronized void removeOwner(UUID ownerUuid) {
+        if (owners.contains(ownerUuid)) {
+            List<UUID> updated = new ArrayList<>(owners);
+            updated.remove(ownerUuid);
+            this.owners = Collections.unmodifiableList(updated);
+        }
     }
 
-    public void clearOwners() {
-        owners.clear();
+    public synchronized void clearOwners() {
+        this.owners = Collections.emptyList();
     }
 
     // 日志功能相关方法
@@ -10,6 +10,7 @@ public class GateCondition {
     
     /**
      * 条件类型枚举
+     * 声明顺序即检查顺序：开销低的条件（经验等级）在前，需要查询经济插件的金钱条件在后
      */
     public enum ConditionType {
         EXPERIENCE("experience"),
@@ -93,12 +94,43 @@ public class GateCondition {
             }
             return null;
         }
+        
+        /**
+         * 比较数值
+         * 
+         * @param actual 玩家当前值
+         * @param required 条件要求的值
+         * @return 是否满足比较关系
+         */
+        public boolean test(double actual, double required) {
+            switch (this) {
+                case EQUAL:
+                    return actual == required;
+                case NOT_EQUAL:
+                    return actual != required;
+                case GREATER:
+                    return actual > required;
+                case GREATER_EQUAL:
+                    return actual >= required;
+                case LESS:
+                    return actual < required;
+                case LESS_EQUAL:
+                    return actual <= required;
+                default:
+                    return false;
+            }
+        }
     }
     
     private final ConditionType conditionType;
     private final JudgeType judgeType;
     private final CompareOperator compareOperator;
     private final String value;
+    // 经验等级或金钱数额，创建条件时解析一次，检查和扣费时不再解析字符串
+    private final double amount;
+    private final boolean amountValid;
+    // 传送目标位置，创建条件时解析一次，进入传送门和传送时直接返回（Location3D不可变）
+    private final Location3D teleportLocation;
     
     /**
      * 构造函数
@@ -114,6 +146,31 @@ public class GateCondition {
         this.judgeType = judgeType;
         this.compareOperator = compareOperator;
         this.value = value;
+        
+        double parsed = Double.NaN;
+        if (value != null) {
+            try {
+                if (conditionType == ConditionType.EXPERIENCE) {
+                    parsed = Integer.parseInt(value);
+                } else if (conditionType == ConditionType.MONEY) {
+                    parsed = Double.parseDouble(value);
+                }
+            } catch (NumberFormatException e) {
+                parsed = Double.NaN;
+            }
+        }
+        this.amount = parsed;
+        this.amountValid = !Double.isNaN(parsed);
+        
+        Location3D location = null;
+        if (conditionType == ConditionType.TELEPORT && value != null) {
+            try {
+                location = Location3D.fromString(value);
+            } catch (IllegalArgumentException e) {
+                location = null;
+            }
+        }
+        this.teleportLocation = location;
     }
     
     /**
@@ -156,21 +213,26 @@ public class GateCondition {
     public CompareOperator getCompareOperator() { return compareOperator; }
     public String getValue() { return value; }
     
+    /**
+     * 获取解析后的数值（经验等级或金钱数额）
+     * 
+     * @return 数值，仅当 {@link #isAmountValid()} 为true时有效
+     */
+    public double getAmount() { return amount; }
+    
+    /**
+     * 检查数值是否已成功解析（仅经验和金钱条件可能为true）
+     * 
+     * @return 是否为有效数值
+     */
+    public boolean isAmountValid() { return amountValid; }
+    
     /**
      * 获取传送位置（仅当条件类型为TELEPORT时有效）
      * 
-     * @return Location3D对象，如果不是传送条件则返回null
+     * @return 创建条件时解析的Location3D对象，如果不是传送条件或无法解析则返回null
      */
-    public Location3D getTeleportLocation() {
-        if (conditionType == ConditionType.TELEPORT) {
-            try {
-                return Location3D.fromString(value);
-            } catch (IllegalArgumentException e) {
-                return null;
-            }
-        }
-        return null;
-    }
+    public Location3D getTeleportLocation() { return teleportLocation; }
     
     @Override
     public String toString() {
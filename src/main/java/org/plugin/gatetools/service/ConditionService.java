@@ -80,7 +80,8 @@ public class ConditionService {
      * @return 检查结果
      */
     public ConditionResult checkConditions(Player player, Gate gate) {
-        for (GateCondition condition : gate.getConditions().values()) {
+        // 检查链按开销从低到高排列，遇到第一个不满足的条件立即返回
+        for (GateCondition condition : gate.getConditionChain()) {
             ConditionResult result = checkSingleCondition(player, condition);
             if (!result.isSuccess()) {
                 return result;
@@ -116,25 +117,23 @@ public class ConditionService {
      * 检查经验条件
      */
     private ConditionResult checkExperienceCondition(Player player, GateCondition condition) {
-        try {
-            int requiredLevel = Integer.parseInt(condition.getValue());
+        if (!condition.isAmountValid()) {
+            return ConditionResult.failure("无效的经验等级配置");
+        }
+        
+        if (condition.getJudgeType() == GateCondition.JudgeType.SET) {
+            int requiredLevel = (int) condition.getAmount();
             int playerLevel = player.getLevel();
-            
-            if (condition.getJudgeType() == GateCondition.JudgeType.SET) {
-                boolean result = compareValues(playerLevel, requiredLevel, condition.getCompareOperator());
-                if (!result) {
-                    String message = configManager.getMessage("condition.experience-insufficient")
-                            .replace("%message_need_experience%", String.valueOf(requiredLevel))
-                            .replace("%current_experience%", String.valueOf(playerLevel));
-                    return ConditionResult.failure(message);
-                }
+            if (!compareValues(playerLevel, requiredLevel, condition.getCompareOperator())) {
+                String message = configManager.getMessage("condition.experience-insufficient")
+                        .replace("%message_need_experience%", String.valueOf(requiredLevel))
+                        .replace("%current_experience%", String.valueOf(playerLevel));
+                return ConditionResult.failure(message);
             }
-            // COST类型的经验条件在applyCosts中处理
-            
-            return ConditionResult.success();
-        } catch (NumberFormatException e) {
-            return ConditionResult.failure("无效的经验等级配置");
         }
+        // COST类型的经验条件在applyCosts中处理
+        
+        return ConditionResult.success();
     }
     
     /**
@@ -165,53 +164,35 @@ public class ConditionService {
             return ConditionResult.failure("经济系统未启用");
         }
         
-        try {
-            double requiredMoney = Double.parseDouble(condition.getValue());
-            double playerMoney = economy.getBalance(player);
-            
-            if (condition.getJudgeType() == GateCondition.JudgeType.SET) {
-                boolean result = compareValues(playerMoney, requiredMoney, condition.getCompareOperator());
-                if (!result) {
-                    String message = configManager.getMessage("condition.money-insufficient")
-                            .replace("%message_need_money%", economy.format(requiredMoney))
-                            .replace("%current_money%", economy.format(playerMoney));
-                    return ConditionResult.failure(message);
-                }
-            } else if (condition.getJudgeType() == GateCondition.JudgeType.COST) {
-                if (playerMoney < requiredMoney) {
-                    String message = configManager.getMessage("condition.money-insufficient")
-                            .replace("%message_need_money%", economy.format(requiredMoney))
-                            .replace("%current_money%", economy.format(playerMoney));
-                    return ConditionResult.failure(message);
-                }
-            }
-            
-            return ConditionResult.success();
-        } catch (NumberFormatException e) {
+        if (!condition.isAmountValid()) {
             return ConditionResult.failure("无效的金钱数额配置");
         }
+        
+        double requiredMoney = condition.getAmount();
+        double playerMoney = economy.getBalance(player);
+        
+        boolean satisfied = true;
+        if (condition.getJudgeType() == GateCondition.JudgeType.SET) {
+            satisfied = compareValues(playerMoney, requiredMoney, condition.getCompareOperator());
+        } else if (condition.getJudgeType() == GateCondition.JudgeType.COST) {
+            satisfied = playerMoney >= requiredMoney;
+        }
+        
+        if (!satisfied) {
+            String message = configManager.getMessage("condition.money-insufficient")
+                    .replace("%message_need_money%", economy.format(requiredMoney))
+                    .replace("%current_money%", economy.format(playerMoney));
+            return ConditionResult.failure(message);
+        }
+        
+        return ConditionResult.success();
     }
     
     /**
      * 比较数值
      */
     private boolean compareValues(double playerValue, double requiredValue, GateCondition.CompareOperator operator) {
-        switch (operator) {
-            case EQUAL:
-                return playerValue == requiredValue;
-            case NOT_EQUAL:
-                return playerValue != requiredValue;
-            case GREATER:
-                return playerValue > requiredValue;
-            case GREATER_EQUAL:
-                return playerValue >= requiredValue;
-            case LESS:
-                return playerValue < requiredValue;
-            case LESS_EQUAL:
-                return playerValue <= requiredValue;
-            default:
-                return false;
-        }
+        return operator != null && operator.test(playerValue, requiredValue);
     }
     
     /**
@@ -229,7 +210,7 @@ public class ConditionService {
             return;
         }
 
-        for (GateCondition condition : gate.getConditions().values()) {
+        for (GateCondition condition : gate.getConditionChain()) {
             if (condition.getJudgeType() == GateCondition.JudgeType.COST) {
                 applySingleCost(player, condition, gate);
             }
@@ -240,32 +221,33 @@ public class ConditionService {
      * 应用单个费用
      */
     private void applySingleCost(Player player, GateCondition condition, Gate gate) {
-        try {
-            switch (condition.getConditionType()) {
-                case EXPERIENCE:
-                    int expCost = Integer.parseInt(condition.getValue());
-                    player.setLevel(Math.max(0, player.getLevel() - expCost));
-                    if (configManager.isDebugEnabled()) {
-                        plugin.getLogger().info("扣除玩家 " + player.getName() + " 经验等级: " + expCost);
-                    }
-                    break;
-                case MONEY:
-                    if (economy != null) {
-                        double moneyCost = Double.parseDouble(condition.getValue());
-                        // 使用转账服务处理金钱费用（支持传送门所有者系统）
-                        boolean success = transferService.transferTeleportFee(player, moneyCost, gate);
-                        if (!success) {
-                            plugin.getLogger().warning("扣除玩家 " + player.getName() + " 传送费用失败: " + economy.format(moneyCost));
-                        } else if (configManager.isDebugEnabled()) {
-                            plugin.getLogger().info("成功处理玩家 " + player.getName() + " 传送费用: " + economy.format(moneyCost));
-                        }
+        if (!condition.isAmountValid()) {
+            plugin.getLogger().log(Level.WARNING, "应用费用时出错: 无效的数值 " + condition);
+            return;
+        }
+        
+        switch (condition.getConditionType()) {
+            case EXPERIENCE:
+                int expCost = (int) condition.getAmount();
+                player.setLevel(Math.max(0, player.getLevel() - expCost));
+                if (configManager.isDebugEnabled()) {
+                    plugin.getLogger().info("扣除玩家 " + player.getName() + " 经验等级: " + expCost);
+                }
+                break;
+            case MONEY:
+                if (economy != null) {
+                    double moneyCost = condition.getAmount();
+                    // 使用转账服务处理金钱费用（支持传送门所有者系统）
+                    boolean success = transferService.transferTeleportFee(player, moneyCost, gate);
+                    if (!success) {
+                        plugin.getLogger().warning("扣除玩家 " + player.getName() + " 传送费用失败: " + economy.format(moneyCost));
+                    } else if (configManager.isDebugEnabled()) {
+                        plugin.getLogger().info("成功处理玩家 " + player.getName() + " 传送费用: " + economy.format(moneyCost));
                     }
-                    break;
-                default:
-                    break;
-            }
-        } catch (NumberFormatException e) {
-            plugin.getLogger().log(Level.WARNING, "应用费用时出错: " + condition, e);
+                }
+                break;
+            default:
+                break;
         }
     }
     
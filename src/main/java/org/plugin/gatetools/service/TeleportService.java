@@ -11,14 +11,17 @@ import org.bukkit.scheduler.BukkitTask;
 import org.plugin.gatetools.GateTools;
 import org.plugin.gatetools.config.ConfigManager;
 import org.plugin.gatetools.config.MessageManager;
+import org.plugin.gatetools.manager.PlayerGateTracker;
 import org.plugin.gatetools.model.Gate;
 import org.plugin.gatetools.model.GateCondition;
 import org.plugin.gatetools.model.Location3D;
 import org.plugin.gatetools.util.MessageUtil;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 传送服务类
@@ -27,18 +30,19 @@ import java.util.concurrent.ConcurrentHashMap;
  * @author NSrank, Augment
  */
 public class TeleportService {
+    // 穿过的传送门的确认有效期（秒），玩家不在其中，不会因离开而取消
+    private static final int CROSSING_CONFIRM_TIMEOUT = 10;
+
     private final GateTools plugin;
     private final ConfigManager configManager;
     private final ConditionService conditionService;
     private final Map<UUID, BukkitTask> teleportTasks;
-    private final Map<UUID, String> playerConfirmingGates;
     
     public TeleportService(GateTools plugin, ConfigManager configManager, ConditionService conditionService) {
         this.plugin = plugin;
         this.configManager = configManager;
         this.conditionService = conditionService;
         this.teleportTasks = new ConcurrentHashMap<>();
-        this.playerConfirmingGates = new ConcurrentHashMap<>();
     }
     
     /**
@@ -50,15 +54,33 @@ public class TeleportService {
     public void showTeleportConfirmation(Player player, Gate gate) {
         UUID playerId = player.getUniqueId();
         
-        // 检查玩家是否已经在确认状态
-        if (playerConfirmingGates.containsKey(playerId)) {
+        // 标记玩家进入确认状态，已经在确认状态时直接返回（检查与标记是原子的）
+        if (!sessions().startConfirming(playerId, gate)) {
             return;
         }
         
-        // 标记玩家进入确认状态
-        playerConfirmingGates.put(playerId, gate.getConfigName());
-        gate.playerStartConfirming(playerId);
+        sendConfirmation(player, gate);
+    }
+    
+    /**
+     * 显示穿过的传送门的传送确认界面
+     * 玩家高速移动时穿过但没有停留在其中的传送门，确认在超时或进入其他传送门后失效
+     * 
+     * @param player 玩家
+     * @param gate 传送门
+     */
+    public void showCrossingConfirmation(Player player, Gate gate) {
+        if (!sessions().startCrossing(player.getUniqueId(), gate, TimeUnit.SECONDS.toNanos(CROSSING_CONFIRM_TIMEOUT))) {
+            return;
+        }
         
+        sendConfirmation(player, gate);
+    }
+    
+    /**
+     * 发送确认消息、使用条件和确认按钮
+     */
+    private void sendConfirmation(Player player, Gate gate) {
         // 发送确认消息
         String confirmMessage = configManager.getMessage("teleport.confirm")
                 .replace("%gate_name%", gate.getDisplayName());
@@ -98,9 +120,9 @@ public class TeleportService {
     public boolean confirmTeleport(Player player, String gateName) {
         UUID playerId = player.getUniqueId();
         
-        // 检查玩家是否在确认状态
-        String confirmingGate = playerConfirmingGates.get(playerId);
-        if (confirmingGate == null || !confirmingGate.equals(gateName)) {
+        // 检查玩家是否在确认状态（穿过的传送门超时后不再有效）
+        Gate confirmingGate = sessions().getConfirmingGate(playerId);
+        if (confirmingGate == null || !confirmingGate.getConfigName().equals(gateName)) {
             return false;
         }
         
@@ -118,8 +140,7 @@ public class TeleportService {
         }
         
         // 清除确认状态
-        playerConfirmingGates.remove(playerId);
-        gate.playerStopConfirming(playerId);
+        sessions().stopConfirming(playerId);
         
         // 开始传送倒计时
         startTeleport(player, gate);
@@ -139,13 +160,14 @@ public class TeleportService {
         }
         
         // 清除确认状态
-        String gateName = playerConfirmingGates.remove(playerId);
-        if (gateName != null) {
-            Gate gate = plugin.getGateManager().getGate(gateName);
-            if (gate != null) {
-                gate.playerStopConfirming(playerId);
-            }
-        }
+        sessions().stopConfirming(playerId);
+    }
+    
+    /**
+     * 玩家会话表，确认状态与玩家所处的传送门记录在一起
+     */
+    private PlayerGateTracker sessions() {
+        return plugin.getGateManager().getPlayerGateTracker();
     }
     
     /**
@@ -256,20 +278,16 @@ public class TeleportService {
             return 0.0;
         }
 
-        // 查找金钱费用条件
-        for (GateCondition condition : gate.getConditions().values()) {
-            if (condition.getJudgeType() == GateCondition.JudgeType.COST &&
-                condition.getConditionType() == GateCondition.ConditionType.MONEY) {
-                try {
-                    return Double.parseDouble(condition.getValue());
-                } catch (NumberFormatException e) {
-                    plugin.getLogger().warning("无效的金钱费用配置: " + condition.getValue());
-                    return 0.0;
-                }
-            }
+        // 查找金钱费用条件（数额在创建条件时已解析）
+        GateCondition condition = gate.getCondition(GateCondition.ConditionType.MONEY);
+        if (condition == null || condition.getJudgeType() != GateCondition.JudgeType.COST) {
+            return 0.0; // 没有金钱费用
         }
-
-        return 0.0; // 没有金钱费用
+        if (!condition.isAmountValid()) {
+            plugin.getLogger().warning("无效的金钱费用配置: " + condition.getValue());
+            return 0.0;
+        }
+        return condition.getAmount();
     }
 
     /**
@@ -279,28 +297,18 @@ public class TeleportService {
      * @param gate 传送门
      */
     private void showGateConditions(Player player, Gate gate) {
-        Map<GateCondition.ConditionType, GateCondition> conditions = gate.getConditions();
+        // 检查链不含传送目标条件
+        List<GateCondition> conditions = gate.getConditionChain();
 
         // 如果没有条件（除了传送目标），则不显示
-        boolean hasNonTeleportConditions = conditions.entrySet().stream()
-                .anyMatch(entry -> entry.getKey() != GateCondition.ConditionType.TELEPORT);
-
-        if (!hasNonTeleportConditions) {
+        if (conditions.isEmpty()) {
             return;
         }
 
         // 显示条件标题
         player.sendMessage(MessageUtil.colorize("&e传送条件:"));
 
-        for (Map.Entry<GateCondition.ConditionType, GateCondition> entry : conditions.entrySet()) {
-            GateCondition.ConditionType type = entry.getKey();
-            GateCondition condition = entry.getValue();
-
-            // 跳过传送目标条件
-            if (type == GateCondition.ConditionType.TELEPORT) {
-                continue;
-            }
-
+        for (GateCondition condition : conditions) {
             String conditionText = formatConditionText(condition);
             if (conditionText != null && !conditionText.isEmpty()) {
                 player.sendMessage(MessageUtil.colorize("  &7- " + conditionText));
@@ -365,7 +373,7 @@ public class TeleportService {
      * @return 是否在确认状态
      */
     public boolean isPlayerConfirming(UUID playerId) {
-        return playerConfirmingGates.containsKey(playerId);
+        return sessions().getConfirmingGate(playerId) != null;
     }
     
     /**
@@ -375,6 +383,7 @@ public class TeleportService {
      * @return 传送门名称，如果不在确认状态则返回null
      */
     public String getConfirmingGate(UUID playerId) {
-        return playerConfirmingGates.get(playerId);
+        Gate gate = sessions().getConfirmingGate(playerId);
+        return gate != null ? gate.getConfigName() : null;
     }
 }
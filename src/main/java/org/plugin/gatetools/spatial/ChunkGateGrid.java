@@ -0,0 +1,227 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.spatial;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 区块网格索引
+ *
+ * 以打包后的区块坐标（long）为键，映射到该区块内候选范围的编号数组。
+ * 所有范围只在一个RangeArray中保存一次，点查询只需一次原始类型哈希查找加少量包含检测，构建完成后不再修改。
+ * 覆盖区块数过多的超大范围单独存放，每次查询时线性检查。
+ *
+ * @author NSrank, Augment
+ */
+public final class ChunkGateGrid implements PointIndex {
+    // 单个范围最多登记的区块数，超过则视为超大范围
+    static final int MAX_CHUNKS_PER_RANGE = 4096;
+    private static final int[] NO_IDS = new int[0];
+
+    private final RangeArray entries;
+    private final LongObjectHashMap<int[]> cells;
+    private final int[] oversized;
+
+    private ChunkGateGrid(RangeArray entries, LongObjectHashMap<int[]> cells, int[] oversized) {
+        this.entries = entries;
+        this.cells = cells;
+        this.oversized = oversized;
+    }
+
+    /**
+     * 构建区块网格
+     *
+     * @param ranges 范围列表
+     * @param data 与范围一一对应的关联数据
+     * @return 区块网格
+     */
+    public static ChunkGateGrid build(List<Range3D> ranges, List<?> data) {
+        RangeArray entries = new RangeArray(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            entries.add(ranges.get(i), data.get(i));
+        }
+        return build(entries);
+    }
+
+    /**
+     * 从范围数组构建区块网格
+     *
+     * @param source 范围及其关联数据（会被复制，之后可以继续修改）
+     * @return 区块网格
+     */
+    public static ChunkGateGrid build(RangeArray source) {
+        RangeArray entries = new RangeArray(source.size());
+        LongObjectHashMap<IdListBuilder> builders = new LongObjectHashMap<>(source.size());
+        IdListBuilder oversizedBuilder = new IdListBuilder();
+
+        for (int i = 0; i < source.size(); i++) {
+            int id = entries.add(source, i);
+
+            int minChunkX = entries.getMinX(id) >> 4;
+            int maxChunkX = entries.getMaxX(id) >> 4;
+            int minChunkZ = entries.getMinZ(id) >> 4;
+            int maxChunkZ = entries.getMaxZ(id) >> 4;
+            long chunkCount = (long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+
+            if (chunkCount > MAX_CHUNKS_PER_RANGE) {
+                oversizedBuilder.add(id);
+                continue;
+            }
+
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    long key = chunkKey(chunkX, chunkZ);
+                    IdListBuilder builder = builders.get(key);
+                    if (builder == null) {
+                        builder = new IdListBuilder();
+                        builders.put(key, builder);
+                    }
+                    builder.add(id);
+                }
+            }
+        }
+
+        LongObjectHashMap<int[]> cells = new LongObjectHashMap<>(builders.size());
+        builders.forEach((key, builder) -> cells.put(key, builder.build()));
+        return new ChunkGateGrid(entries, cells, oversizedBuilder.build());
+    }
+
+    /**
+     * 将区块坐标打包为long键
+     */
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T first(int x, int y, int z) {
+        int[] cell = cells.get(chunkKey(x >> 4, z >> 4));
+        if (cell != null) {
+            for (int id : cell) {
+                if (entries.contains(id, x, y, z)) {
+                    return (T) entries.getValue(id);
+                }
+            }
+        }
+        for (int id : oversized) {
+            if (entries.contains(id, x, y, z)) {
+                return (T) entries.getValue(id);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public <T> void query(int x, int y, int z, List<T> result) {
+        int[] cell = cells.get(chunkKey(x >> 4, z >> 4));
+        if (cell != null) {
+            entries.collect(cell, x, y, z, result);
+        }
+        entries.collect(oversized, x, y, z, result);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> void querySwept(Segment3D segment, List<T> result) {
+        int minChunkX = Math.min(segment.getStartX(), segment.getEndX()) >> 4;
+        int maxChunkX = Math.max(segment.getStartX(), segment.getEndX()) >> 4;
+        int minChunkZ = Math.min(segment.getStartZ(), segment.getEndZ()) >> 4;
+        int maxChunkZ = Math.max(segment.getStartZ(), segment.getEndZ()) >> 4;
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                int[] cell = cells.get(chunkKey(chunkX, chunkZ));
+                if (cell == null) {
+                    continue;
+                }
+                for (int id : cell) {
+                    // 跨多个区块的范围只在遍历到的第一个区块中检查，避免重复结果
+                    if (chunkX == Math.max(minChunkX, entries.getMinX(id) >> 4) &&
+                        chunkZ == Math.max(minChunkZ, entries.getMinZ(id) >> 4) &&
+                        entries.sweptBy(id, segment)) {
+                        result.add((T) entries.getValue(id));
+                    }
+                }
+            }
+        }
+
+        for (int id : oversized) {
+            if (entries.sweptBy(id, segment)) {
+                result.add((T) entries.getValue(id));
+            }
+        }
+    }
+
+    /**
+     * 获取登记了范围的区块数
+     */
+    public int getChunkCount() {
+        return cells.size();
+    }
+
+    /**
+     * 获取超大范围数量
+     */
+    public int getOversizedCount() {
+        return oversized.length;
+    }
+
+    @Override
+    public long estimateBytes() {
+        long[] bytes = {entries.estimateBytes() + cells.estimateBytes() + 16L + (long) oversized.length * Integer.BYTES};
+        cells.forEach((key, ids) -> bytes[0] += 16L + (long) ids.length * Integer.BYTES);
+        return bytes[0];
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkGateGrid{" +
+                "ranges=" + entries.size() +
+                ", chunks=" + cells.size() +
+                ", oversized=" + oversized.length +
+                '}';
+    }
+
+    /**
+     * 单个区块内候选范围编号的构建器
+     */
+    private static final class IdListBuilder {
+        private int[] ids = new int[2];
+        private int size;
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        private int[] build() {
+            return size == 0 ? NO_IDS : Arrays.copyOf(ids, size);
+        }
+    }
+}
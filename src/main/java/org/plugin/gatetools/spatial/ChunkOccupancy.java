@@ -0,0 +1,359 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.spatial;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 世界中含有传送门的区块集合
+ *
+ * 以开放寻址哈希表保存区块键和覆盖该区块的范围数量（线性探测，原始类型存储），查询时不产生装箱对象。
+ * 范围增删时只更新其覆盖区块的计数，计数归零的区块从表中移除，单次更新的开销与范围覆盖的区块数成正比，
+ * 与世界中的传送门总数无关。可变实例的查询获取读锁；copy()得到的不可变副本供快照模式发布，查询无锁。
+ * 移动事件先在这里判断所在区块有没有传送门，绝大多数位于空区块的移动无需访问空间索引。
+ *
+ * @author NSrank, Augment
+ */
+public final class ChunkOccupancy {
+    /** 不含任何区块的集合（不可变） */
+    public static final ChunkOccupancy EMPTY = new ChunkOccupancy(null, new long[8], new int[8], 0, new int[0], 0);
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    // 可变实例的读写锁，不可变副本为null
+    private final ReentrantReadWriteLock lock;
+    private long[] keys;
+    // 覆盖该区块的范围数量，0表示空槽
+    private int[] counts;
+    private int size;
+    // 覆盖区块数过多的超大范围不逐个登记区块，按区块矩形保存：minChunkX, minChunkZ, maxChunkX, maxChunkZ
+    private int[] oversized;
+    private int oversizedLength;
+
+    /**
+     * 创建空的可变区块集合
+     */
+    public ChunkOccupancy() {
+        this(8);
+    }
+
+    private ChunkOccupancy(int expectedChunks) {
+        this(new ReentrantReadWriteLock(), new long[tableSizeFor(expectedChunks)],
+            new int[tableSizeFor(expectedChunks)], 0, new int[0], 0);
+    }
+
+    private ChunkOccupancy(ReentrantReadWriteLock lock, long[] keys, int[] counts, int size,
+                           int[] oversized, int oversizedLength) {
+        this.lock = lock;
+        this.keys = keys;
+        this.counts = counts;
+        this.size = size;
+        this.oversized = oversized;
+        this.oversizedLength = oversizedLength;
+    }
+
+    /**
+     * 根据范围数组构建可变的区块集合
+     *
+     * @param entries 世界中的全部范围
+     * @return 区块集合
+     */
+    public static ChunkOccupancy build(RangeArray entries) {
+        long chunkCount = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            long count = chunkCount(entries.getMinX(i), entries.getMinZ(i), entries.getMaxX(i), entries.getMaxZ(i));
+            if (count <= ChunkGateGrid.MAX_CHUNKS_PER_RANGE) {
+                chunkCount += count;
+            }
+        }
+
+        ChunkOccupancy occupancy = new ChunkOccupancy((int) Math.min(1 << 30, (long) Math.ceil(chunkCount / LOAD_FACTOR)));
+        for (int i = 0; i < entries.size(); i++) {
+            occupancy.addRange(entries.getMinX(i), entries.getMinZ(i), entries.getMaxX(i), entries.getMaxZ(i));
+        }
+        return occupancy;
+    }
+
+    /**
+     * 登记一个范围覆盖的区块
+     *
+     * @param minX 范围的最小方块X坐标
+     * @param minZ 范围的最小方块Z坐标
+     * @param maxX 范围的最大方块X坐标
+     * @param maxZ 范围的最大方块Z坐标
+     */
+    public void add(int minX, int minZ, int maxX, int maxZ) {
+        checkMutable();
+        lock.writeLock().lock();
+        try {
+            addRange(minX, minZ, maxX, maxZ);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除一个之前登记过的范围，覆盖计数归零的区块不再被视为含有传送门
+     *
+     * @param minX 范围的最小方块X坐标
+     * @param minZ 范围的最小方块Z坐标
+     * @param maxX 范围的最大方块X坐标
+     * @param maxZ 范围的最大方块Z坐标
+     */
+    public void remove(int minX, int minZ, int maxX, int maxZ) {
+        checkMutable();
+        lock.writeLock().lock();
+        try {
+            removeRange(minX, minZ, maxX, maxZ);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 创建当前内容的不可变副本，查询时无需加锁
+     * 副本与原表使用相同的容量和探测顺序，只需复制数组
+     */
+    public ChunkOccupancy copy() {
+        if (lock == null) {
+            return this;
+        }
+        lock.readLock().lock();
+        try {
+            return new ChunkOccupancy(null, keys.clone(), counts.clone(), size,
+                Arrays.copyOf(oversized, oversizedLength), oversizedLength);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 检查区块中是否可能有传送门
+     */
+    public boolean contains(int chunkX, int chunkZ) {
+        if (lock == null) {
+            return containsChunk(chunkX, chunkZ);
+        }
+        lock.readLock().lock();
+        try {
+            return containsChunk(chunkX, chunkZ);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 检查矩形区块范围内是否可能有传送门
+     */
+    public boolean containsAny(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        if (lock == null) {
+            return containsAnyChunk(minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+        }
+        lock.readLock().lock();
+        try {
+            return containsAnyChunk(minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取登记的区块数（不含超大范围覆盖的区块）
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取超大范围数量
+     */
+    public int getOversizedCount() {
+        return oversizedLength / 4;
+    }
+
+    /**
+     * 估算占用的堆内存（字节）
+     */
+    public long estimateBytes() {
+        return 3 * 16L + (long) keys.length * (Long.BYTES + Integer.BYTES) + (long) oversized.length * Integer.BYTES;
+    }
+
+    private void checkMutable() {
+        if (lock == null) {
+            throw new UnsupportedOperationException("ChunkOccupancy copy is read-only");
+        }
+    }
+
+    private boolean containsChunk(int chunkX, int chunkZ) {
+        for (int i = 0; i < oversizedLength; i += 4) {
+            if (chunkX >= oversized[i] && chunkZ >= oversized[i + 1] &&
+                chunkX <= oversized[i + 2] && chunkZ <= oversized[i + 3]) {
+                return true;
+            }
+        }
+        return size > 0 && indexOf(ChunkGateGrid.chunkKey(chunkX, chunkZ)) >= 0;
+    }
+
+    private boolean containsAnyChunk(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                if (containsChunk(chunkX, chunkZ)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void addRange(int minX, int minZ, int maxX, int maxZ) {
+        if (chunkCount(minX, minZ, maxX, maxZ) > ChunkGateGrid.MAX_CHUNKS_PER_RANGE) {
+            if (oversizedLength == oversized.length) {
+                oversized = Arrays.copyOf(oversized, Math.max(8, oversized.length * 2));
+            }
+            oversized[oversizedLength++] = minX >> 4;
+            oversized[oversizedLength++] = minZ >> 4;
+            oversized[oversizedLength++] = maxX >> 4;
+            oversized[oversizedLength++] = maxZ >> 4;
+            return;
+        }
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                increment(ChunkGateGrid.chunkKey(chunkX, chunkZ));
+            }
+        }
+    }
+
+    private void removeRange(int minX, int minZ, int maxX, int maxZ) {
+        if (chunkCount(minX, minZ, maxX, maxZ) > ChunkGateGrid.MAX_CHUNKS_PER_RANGE) {
+            for (int i = 0; i < oversizedLength; i += 4) {
+                if (oversized[i] == minX >> 4 && oversized[i + 1] == minZ >> 4 &&
+                    oversized[i + 2] == maxX >> 4 && oversized[i + 3] == maxZ >> 4) {
+                    // 最后一个矩形移动到该位置（不保持顺序）
+                    oversizedLength -= 4;
+                    System.arraycopy(oversized, oversizedLength, oversized, i, 4);
+                    return;
+                }
+            }
+            return;
+        }
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                decrement(ChunkGateGrid.chunkKey(chunkX, chunkZ));
+            }
+        }
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (counts[index] != 0) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void increment(long key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (counts[index] != 0) {
+            if (keys[index] == key) {
+                counts[index]++;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        counts[index] = 1;
+        if (++size > keys.length * LOAD_FACTOR) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    private void decrement(long key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return;
+        }
+        if (--counts[index] == 0) {
+            size--;
+            closeGap(index);
+        }
+    }
+
+    /**
+     * 删除槽位后将同一探测链上的后续条目前移，保持线性探测的查找不变式（无需墓碑）
+     */
+    private void closeGap(int gap) {
+        int mask = keys.length - 1;
+        int index = (gap + 1) & mask;
+        while (counts[index] != 0) {
+            int home = mix(keys[index]) & mask;
+            // 条目的初始位置不在(gap, index]之间时，可以前移到gap
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                counts[gap] = counts[index];
+                counts[index] = 0;
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[newCapacity];
+        counts = new int[newCapacity];
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCounts[i] != 0) {
+                int index = mix(oldKeys[i]) & mask;
+                while (counts[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                counts[index] = oldCounts[i];
+            }
+        }
+    }
+
+    private static long chunkCount(int minX, int minZ, int maxX, int maxZ) {
+        return (long) ((maxX >> 4) - (minX >> 4) + 1) * ((maxZ >> 4) - (minZ >> 4) + 1);
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        return Math.max(n, 8);
+    }
+}
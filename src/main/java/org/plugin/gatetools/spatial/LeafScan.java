@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.spatial;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 叶子扫描实现选择
+ *
+ * 向量化扫描依赖孵化模块jdk.incubator.vector，实现类只在以 -Pvector 构建时编译（源码位于src/vector/java），
+ * 并且只有JVM以 --add-modules jdk.incubator.vector 启动时才会加载，否则始终使用标量循环。扫描的范围数不少于minItems时才使用向量化实现，
+ * 范围较少时标量循环的提前退出通常更快（分界点见LeafScanBenchmark）。
+ *
+ * @author NSrank, Augment
+ */
+public final class LeafScan {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_SCANNER = "org.plugin.gatetools.spatial.VectorLeafScanner";
+
+    private static final LeafScanner SCALAR = LeafScan::scalarFirstContaining;
+    private static volatile LeafScanner vector;
+    private static volatile boolean vectorLoaded;
+
+    // 当前启用的向量化实现及其最小范围数，未启用时为null
+    private static volatile LeafScanner active;
+    private static volatile int activeMinItems = Integer.MAX_VALUE;
+
+    private LeafScan() {
+    }
+
+    /**
+     * 获取标量实现
+     */
+    public static LeafScanner scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * 获取向量化实现
+     *
+     * @return 向量化实现，孵化模块不可用时返回null
+     */
+    public static LeafScanner vector() {
+        if (!vectorLoaded) {
+            synchronized (LeafScan.class) {
+                if (!vectorLoaded) {
+                    vector = loadVector();
+                    vectorLoaded = true;
+                }
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * 检查向量化实现是否可用
+     */
+    public static boolean isVectorAvailable() {
+        return vector() != null;
+    }
+
+    /**
+     * 设置是否使用向量化扫描
+     *
+     * @param enabled 是否启用
+     * @param minItems 使用向量化扫描的最小范围数
+     * @return 向量化扫描是否实际生效
+     */
+    public static boolean configure(boolean enabled, int minItems) {
+        LeafScanner scanner = enabled ? vector() : null;
+        activeMinItems = scanner != null ? Math.max(1, minItems) : Integer.MAX_VALUE;
+        active = scanner;
+        return scanner != null;
+    }
+
+    /**
+     * 检查向量化扫描是否已启用
+     */
+    public static boolean isVectorEnabled() {
+        return active != null;
+    }
+
+    /**
+     * 按当前配置在[from, to)中查找第一个包含指定坐标的范围
+     */
+    static int firstContaining(int[] minX, int[] minY, int[] minZ, int[] maxX, int[] maxY, int[] maxZ,
+                               int from, int to, int x, int y, int z) {
+        if (to - from >= activeMinItems) {
+            LeafScanner scanner = active;
+            if (scanner != null) {
+                return scanner.firstContaining(minX, minY, minZ, maxX, maxY, maxZ, from, to, x, y, z);
+            }
+        }
+        return scalarFirstContaining(minX, minY, minZ, maxX, maxY, maxZ, from, to, x, y, z);
+    }
+
+    private static int scalarFirstContaining(int[] minX, int[] minY, int[] minZ, int[] maxX, int[] maxY, int[] maxZ,
+                                             int from, int to, int x, int y, int z) {
+        for (int i = from; i < to; i++) {
+            if (x >= minX[i] && x <= maxX[i] &&
+                y >= minY[i] && y <= maxY[i] &&
+                z >= minZ[i] && z <= maxZ[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 只在孵化模块已加载时通过反射创建向量化实现，避免在没有该模块的JVM上链接失败
+     */
+    private static LeafScanner loadVector() {
+        if (!ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            return null;
+        }
+        try {
+            return (LeafScanner) Class.forName(VECTOR_SCANNER).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            Logger.getLogger(LeafScan.class.getName()).log(Level.FINE, "无法加载向量化叶子扫描", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.spatial;
+
+/**
+ * 叶子节点包含检测
+ *
+ * 在结构数组形式的一组范围中查找第一个包含指定坐标的范围。
+ * 标量实现总是可用；向量化实现见VectorLeafScanner，由LeafScan按需加载。
+ *
+ * @author NSrank, Augment
+ */
+public interface LeafScanner {
+
+    /**
+     * 在[from, to)中查找第一个包含指定坐标的范围
+     *
+     * @return 范围下标，没有则返回-1
+     */
+    int firstContaining(int[] minX, int[] minY, int[] minZ, int[] maxX, int[] maxY, int[] maxZ,
+                        int from, int to, int x, int y, int z);
+}
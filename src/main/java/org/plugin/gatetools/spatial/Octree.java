@@ -24,9 +24,11 @@
 
 package org.plugin.gatetools.spatial;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
@@ -34,17 +36,25 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * 
  * 用于高效的3D空间查询和碰撞检测。
  * 线程安全的实现，支持并发读写操作。
+ * 每个范围只存放在完全包含它的最小节点中：跨越子节点边界的范围保留在父节点，
+ * 点查询沿根到叶子的唯一路径检查每一层的项目即可得到全部结果。
+ * 作为PointIndex查询时返回插入时关联的数据（未提供数据时为范围本身）。
+ * 节点项目以RangeArray保存，边界完全相同的范围作为独立的项目共存。
  * 
  * @author NSrank, Augment
  */
-public class Octree {
+public class Octree implements PointIndex {
+    // 每个节点对象、读写锁和范围数组对象的大致开销（字节），用于内存估算
+    private static final int NODE_OVERHEAD_BYTES = 160;
+    
     private final Range3D boundary;
     private final int maxDepth;
     private final int maxItems;
     private final int depth;
     
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-    private final ConcurrentHashMap<Range3D, Object> items = new ConcurrentHashMap<>();
+    // 当前节点的项目，由本节点的读写锁保护
+    private final RangeArray items = new RangeArray();
     private Octree[] children = null;
     private volatile boolean closed = false;
     
@@ -69,6 +79,136 @@ public class Octree {
         this.depth = depth;
     }
     
+    /**
+     * 批量构建八叉树
+     * 
+     * 逐层按子节点对全部项目做一次计数排序划分，直接生成与逐个插入语义相同的树：
+     * 项目存放在完全包含它的最小节点中，节点项目数超过maxItems时分割。
+     * 构建期间树尚未发布，不获取任何锁，也不会像逐个插入那样在分割时复制节点内容。
+     * 
+     * @param boundary 八叉树的边界范围
+     * @param maxDepth 最大深度
+     * @param maxItems 每个节点最大项目数
+     * @param ranges 要插入的范围
+     * @param data 与范围一一对应的数据，为null时数据为范围本身
+     * @return 构建完成的八叉树
+     */
+    public static Octree build(Range3D boundary, int maxDepth, int maxItems, List<Range3D> ranges, List<?> data) {
+        RangeArray entries = new RangeArray(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            Object value = data != null ? data.get(i) : null;
+            entries.add(ranges.get(i), value != null ? value : ranges.get(i));
+        }
+        return build(boundary, maxDepth, maxItems, entries);
+    }
+    
+    /**
+     * 从范围数组批量构建八叉树
+     * 
+     * @param boundary 八叉树的边界范围
+     * @param maxDepth 最大深度
+     * @param maxItems 每个节点最大项目数
+     * @param entries 要插入的范围及其数据（只读取，不保留引用）
+     * @return 构建完成的八叉树
+     */
+    public static Octree build(Range3D boundary, int maxDepth, int maxItems, RangeArray entries) {
+        Octree root = new Octree(boundary, maxDepth, maxItems);
+        
+        int[] order = new int[entries.size()];
+        int count = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.intersects(i, boundary)) {
+                order[count++] = i;
+            }
+        }
+        
+        root.bulkLoad(entries, order, 0, count, new int[entries.size()], new int[count]);
+        return root;
+    }
+    
+    /**
+     * 将order[from, to)中的项目装入当前子树
+     * 
+     * @param bucketOf 按项目下标记录其所属子节点（8表示保留在当前节点）
+     * @param scratch 划分用的临时数组
+     */
+    private void bulkLoad(RangeArray entries, int[] order, int from, int to, int[] bucketOf, int[] scratch) {
+        if (to - from <= maxItems || !canSubdivide()) {
+            for (int i = from; i < to; i++) {
+                items.add(entries, order[i]);
+            }
+            return;
+        }
+        
+        Range3D[] subRanges = boundary.subdivide();
+        children = new Octree[8];
+        for (int i = 0; i < 8; i++) {
+            children[i] = new Octree(subRanges[i], maxDepth, maxItems, depth + 1);
+        }
+        
+        // 分割面：子节点0的上界
+        int splitX = subRanges[0].getMaxX();
+        int splitY = subRanges[0].getMaxY();
+        int splitZ = subRanges[0].getMaxZ();
+        
+        int[] counts = new int[9];
+        for (int i = from; i < to; i++) {
+            int item = order[i];
+            int bucket = bucketFor(entries, item, splitX, splitY, splitZ);
+            bucketOf[item] = bucket;
+            counts[bucket]++;
+        }
+        
+        // 计数排序：子节点0~7依次排列，跨越边界的项目排在最后
+        int[] starts = new int[10];
+        starts[0] = from;
+        for (int b = 0; b < 9; b++) {
+            starts[b + 1] = starts[b] + counts[b];
+        }
+        int[] cursor = Arrays.copyOf(starts, 9);
+        for (int i = from; i < to; i++) {
+            int item = order[i];
+            scratch[cursor[bucketOf[item]]++] = item;
+        }
+        System.arraycopy(scratch, from, order, from, to - from);
+        
+        for (int i = starts[8]; i < to; i++) {
+            items.add(entries, order[i]);
+        }
+        for (int b = 0; b < 8; b++) {
+            children[b].bulkLoad(entries, order, starts[b], starts[b + 1], bucketOf, scratch);
+        }
+    }
+    
+    /**
+     * 计算范围所属的子节点下标，顺序与Range3D.subdivide()一致
+     * 
+     * @return 子节点下标，跨越分割面（或超出当前边界）时返回8
+     */
+    private int bucketFor(RangeArray entries, int item, int splitX, int splitY, int splitZ) {
+        if (!entries.isWithin(item, boundary)) {
+            return 8;
+        }
+        
+        int bucket = 0;
+        if (entries.getMinX(item) > splitX) {
+            bucket |= 1;
+        } else if (entries.getMaxX(item) > splitX) {
+            return 8;
+        }
+        if (entries.getMinY(item) > splitY) {
+            bucket |= 2;
+        } else if (entries.getMaxY(item) > splitY) {
+            return 8;
+        }
+        if (entries.getMinZ(item) > splitZ) {
+            bucket |= 4;
+        } else if (entries.getMaxZ(item) > splitZ) {
+            return 8;
+        }
+        return bucket;
+    }
+    
     /**
      * 插入范围到八叉树
      * 
@@ -77,32 +217,35 @@ public class Octree {
      * @return 是否成功插入
      */
     public boolean insert(Range3D range, Object data) {
+        return insert(range.getMinX(), range.getMinY(), range.getMinZ(),
+            range.getMaxX(), range.getMaxY(), range.getMaxZ(), data != null ? data : range);
+    }
+    
+    private boolean insert(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, Object value) {
         if (closed) return false;
         
         lock.writeLock().lock();
         try {
             // 检查范围是否在边界内
-            if (!boundary.intersects(range)) {
+            if (maxX < boundary.getMinX() || minX > boundary.getMaxX() ||
+                maxY < boundary.getMinY() || minY > boundary.getMaxY() ||
+                maxZ < boundary.getMinZ() || minZ > boundary.getMaxZ()) {
                 return false;
             }
             
-            // 如果有子节点，尝试插入到子节点
+            // 如果有子节点，下放到完全包含该范围的子节点
             if (children != null) {
-                for (Octree child : children) {
-                    if (child.boundary.intersects(range)) {
-                        if (child.insert(range, data)) {
-                            return true;
-                        }
-                    }
+                Octree child = childContaining(minX, minY, minZ, maxX, maxY, maxZ);
+                if (child != null) {
+                    return child.insert(minX, minY, minZ, maxX, maxY, maxZ, value);
                 }
-                return false;
             }
             
-            // 添加到当前节点
-            items.put(range, data != null ? data : range);
+            // 跨越子节点边界（或部分超出边界）的范围保留在当前节点
+            items.add(minX, minY, minZ, maxX, maxY, maxZ, value);
             
             // 检查是否需要分割
-            if (items.size() > maxItems && depth < maxDepth) {
+            if (children == null && items.size() > maxItems && canSubdivide()) {
                 subdivide();
             }
             
@@ -120,29 +263,46 @@ public class Octree {
     }
     
     /**
-     * 移除范围
+     * 移除边界相同的一个范围（不区分关联数据）
      * 
      * @param range 要移除的范围
      * @return 是否成功移除
      */
     public boolean remove(Range3D range) {
+        return remove(range, null, false);
+    }
+    
+    /**
+     * 移除边界和关联数据都相同的范围
+     * 多个范围边界相同时只移除数据匹配的那一个
+     * 
+     * @param range 要移除的范围
+     * @param data 插入时关联的数据，按equals比较
+     * @return 是否成功移除
+     */
+    public boolean remove(Range3D range, Object data) {
+        return remove(range, data, true);
+    }
+    
+    private boolean remove(Range3D range, Object data, boolean matchData) {
         if (closed) return false;
         
         lock.writeLock().lock();
         try {
             // 先尝试从当前节点移除
-            if (items.remove(range) != null) {
+            int index = matchData ? items.indexOf(range, data) : items.indexOf(range);
+            if (index >= 0) {
+                items.removeAt(index);
                 return true;
             }
             
-            // 尝试从子节点移除
+            // 范围只可能位于完全包含它的子节点中
             if (children != null) {
-                for (Octree child : children) {
-                    if (child.boundary.intersects(range)) {
-                        if (child.remove(range)) {
-                            return true;
-                        }
-                    }
+                Octree child = childContaining(range.getMinX(), range.getMinY(), range.getMinZ(),
+                    range.getMaxX(), range.getMaxY(), range.getMaxZ());
+                if (child != null && child.remove(range, data, matchData)) {
+                    mergeEmptyChildren();
+                    return true;
                 }
             }
             
@@ -159,27 +319,35 @@ public class Octree {
      * @return 包含该点的第一个范围，如果没有则返回null
      */
     public Range3D firstRange(Point3D point) {
+        return firstRange(point.getX(), point.getY(), point.getZ());
+    }
+
+    /**
+     * 查询包含指定坐标的第一个范围
+     *
+     * @return 包含该坐标的第一个范围，如果没有则返回null
+     */
+    public Range3D firstRange(int x, int y, int z) {
         if (closed) return null;
         
         lock.readLock().lock();
         try {
             // 检查点是否在边界内
-            if (!boundary.contains(point)) {
+            if (!boundary.contains(x, y, z)) {
                 return null;
             }
             
             // 先检查当前节点的项目
-            for (Range3D range : items.keySet()) {
-                if (range.contains(point)) {
-                    return range;
-                }
+            int index = items.firstContaining(0, items.size(), x, y, z);
+            if (index >= 0) {
+                return items.getRange(index);
             }
             
             // 检查子节点
             if (children != null) {
                 for (Octree child : children) {
-                    if (child.boundary.contains(point)) {
-                        Range3D result = child.firstRange(point);
+                    if (child.boundary.contains(x, y, z)) {
+                        Range3D result = child.firstRange(x, y, z);
                         if (result != null) {
                             return result;
                         }
@@ -200,34 +368,121 @@ public class Octree {
      * @return 包含该点的所有范围列表
      */
     public List<Range3D> queryRanges(Point3D point) {
-        if (closed) return new ArrayList<>();
+        List<Range3D> result = new ArrayList<>();
+        queryRanges(point.getX(), point.getY(), point.getZ(), result);
+        return result;
+    }
+
+    /**
+     * 查询包含指定坐标的所有范围，结果追加到调用方提供的列表中
+     *
+     * @param result 结果列表（可重复使用，避免每次查询分配新列表）
+     */
+    public void queryRanges(int x, int y, int z, List<Range3D> result) {
+        if (closed) return;
 
         lock.readLock().lock();
         try {
-            List<Range3D> result = new ArrayList<>();
-
             // 检查点是否在边界内
-            if (!boundary.contains(point)) {
-                return result;
+            if (!boundary.contains(x, y, z)) {
+                return;
             }
 
             // 检查当前节点的项目
-            for (Range3D range : items.keySet()) {
-                if (range.contains(point)) {
-                    result.add(range);
-                }
+            int size = items.size();
+            for (int i = items.firstContaining(0, size, x, y, z); i >= 0; i = items.firstContaining(i + 1, size, x, y, z)) {
+                result.add(items.getRange(i));
             }
 
             // 检查子节点
             if (children != null) {
                 for (Octree child : children) {
-                    if (child.boundary.contains(point)) {
-                        result.addAll(child.queryRanges(point));
+                    if (child.boundary.contains(x, y, z)) {
+                        child.queryRanges(x, y, z, result);
                     }
                 }
             }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
-            return result;
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T first(int x, int y, int z) {
+        if (closed) return null;
+
+        lock.readLock().lock();
+        try {
+            if (!boundary.contains(x, y, z)) {
+                return null;
+            }
+
+            int index = items.firstContaining(0, items.size(), x, y, z);
+            if (index >= 0) {
+                return (T) items.getValue(index);
+            }
+
+            if (children != null) {
+                for (Octree child : children) {
+                    if (child.boundary.contains(x, y, z)) {
+                        T result = child.first(x, y, z);
+                        if (result != null) {
+                            return result;
+                        }
+                    }
+                }
+            }
+
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> void query(int x, int y, int z, List<T> result) {
+        if (closed) return;
+
+        lock.readLock().lock();
+        try {
+            if (!boundary.contains(x, y, z)) {
+                return;
+            }
+
+            items.collect(0, items.size(), x, y, z, result);
+
+            if (children != null) {
+                for (Octree child : children) {
+                    if (child.boundary.contains(x, y, z)) {
+                        child.query(x, y, z, result);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> void querySwept(Segment3D segment, List<T> result) {
+        if (closed) return;
+
+        lock.readLock().lock();
+        try {
+            if (!segment.intersects(boundary)) {
+                return;
+            }
+
+            items.collectSwept(0, items.size(), segment, result);
+
+            if (children != null) {
+                for (Octree child : children) {
+                    if (segment.intersects(child.boundary)) {
+                        child.querySwept(segment, result);
+                    }
+                }
+            }
         } finally {
             lock.readLock().unlock();
         }
@@ -252,9 +507,9 @@ public class Octree {
             }
 
             // 检查当前节点的项目
-            for (Range3D range : items.keySet()) {
-                if (range.intersects(queryRange)) {
-                    result.add(range);
+            for (int i = 0; i < items.size(); i++) {
+                if (items.intersects(i, queryRange)) {
+                    result.add(items.getRange(i));
                 }
             }
 
@@ -273,11 +528,34 @@ public class Octree {
         }
     }
 
+    /**
+     * 检查当前节点能否继续分割
+     */
+    private boolean canSubdivide() {
+        return depth < maxDepth && boundary.canSubdivide();
+    }
+
+    /**
+     * 查找完全包含指定范围的子节点（子节点互不重叠，至多一个）
+     */
+    private Octree childContaining(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        for (Octree child : children) {
+            Range3D bounds = child.boundary;
+            if (minX >= bounds.getMinX() && maxX <= bounds.getMaxX() &&
+                minY >= bounds.getMinY() && maxY <= bounds.getMaxY() &&
+                minZ >= bounds.getMinZ() && maxZ <= bounds.getMaxZ()) {
+                return child;
+            }
+        }
+        return null;
+    }
+
     /**
      * 分割当前节点为8个子节点
+     * 只有完全落入某个子节点的项目会被下放，其余保留在当前节点
      */
     private void subdivide() {
-        if (children != null || depth >= maxDepth) return;
+        if (children != null || !canSubdivide()) return;
 
         Range3D[] subRanges = boundary.subdivide();
         children = new Octree[8];
@@ -285,51 +563,150 @@ public class Octree {
             children[i] = new Octree(subRanges[i], maxDepth, maxItems, depth + 1);
         }
 
-        // 将当前项目重新分配到子节点
-        ConcurrentHashMap<Range3D, Object> currentItems = new ConcurrentHashMap<>(items);
-        items.clear();
+        // 将当前项目重新分配到子节点；从后向前遍历，removeAt移入的末尾项目已经处理过
+        for (int i = items.size() - 1; i >= 0; i--) {
+            int minX = items.getMinX(i), minY = items.getMinY(i), minZ = items.getMinZ(i);
+            int maxX = items.getMaxX(i), maxY = items.getMaxY(i), maxZ = items.getMaxZ(i);
+            Octree child = childContaining(minX, minY, minZ, maxX, maxY, maxZ);
+            if (child != null) {
+                child.insert(minX, minY, minZ, maxX, maxY, maxZ, items.getValue(i));
+                items.removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * 子节点全部为空叶子时将其回收，避免删除后残留空节点
+     */
+    private void mergeEmptyChildren() {
+        for (Octree child : children) {
+            if (child.children != null || !child.items.isEmpty()) {
+                return;
+            }
+        }
+        for (Octree child : children) {
+            child.close();
+        }
+        children = null;
+    }
+
+    /**
+     * 获取根节点边界
+     */
+    public Range3D getBoundary() {
+        return boundary;
+    }
+
+    /**
+     * 获取统计信息
+     *
+     * 所有写操作都会先获取根节点写锁，因此持有根节点读锁即可得到一致的统计结果。
+     */
+    public OctreeStats getStats() {
+        lock.readLock().lock();
+        try {
+            int totalNodes = 0;
+            int totalItems = 0;
+            int maxDepthReached = depth;
+            int maxItemsPerNode = 0;
+            int[] itemsPerDepth = new int[maxDepth - depth + 1];
+
+            Deque<Octree> nodes = new ArrayDeque<>();
+            nodes.add(this);
+            while (!nodes.isEmpty()) {
+                Octree node = nodes.poll();
+                int nodeItems = node.items.size();
 
-        for (ConcurrentHashMap.Entry<Range3D, Object> entry : currentItems.entrySet()) {
-            Range3D range = entry.getKey();
-            Object data = entry.getValue();
-            boolean inserted = false;
+                totalNodes++;
+                totalItems += nodeItems;
+                maxDepthReached = Math.max(maxDepthReached, node.depth);
+                maxItemsPerNode = Math.max(maxItemsPerNode, nodeItems);
+                itemsPerDepth[node.depth - depth] += nodeItems;
 
-            for (Octree child : children) {
-                if (child.boundary.intersects(range)) {
-                    if (child.insert(range, data)) {
-                        inserted = true;
-                        break;
+                if (node.children != null) {
+                    for (Octree child : node.children) {
+                        nodes.add(child);
                     }
                 }
             }
 
-            // 如果无法插入到子节点，保留在当前节点
-            if (!inserted) {
-                items.put(range, data);
+            return new OctreeStats(totalNodes, totalItems, maxDepthReached,
+                Arrays.copyOf(itemsPerDepth, maxDepthReached - depth + 1), maxItemsPerNode);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 估算八叉树占用的堆内存（字节），不含关联数据本身
+     * 与getStats一样持有根节点读锁遍历全部节点
+     */
+    @Override
+    public long estimateBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            Deque<Octree> nodes = new ArrayDeque<>();
+            nodes.add(this);
+            while (!nodes.isEmpty()) {
+                Octree node = nodes.poll();
+                bytes += NODE_OVERHEAD_BYTES + node.items.estimateBytes();
+                if (node.children != null) {
+                    bytes += 16L + node.children.length * 4L;
+                    for (Octree child : node.children) {
+                        nodes.add(child);
+                    }
+                }
             }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
     /**
-     * 获取统计信息
+     * 创建当前八叉树的不可变快照
+     *
+     * 所有写操作都会先获取根节点写锁，因此持有根节点读锁即可保证快照的一致性。
+     *
+     * @return 不可变快照
      */
-    public OctreeStats getStats() {
+    public OctreeSnapshot snapshot() {
+        if (closed) return OctreeSnapshot.EMPTY;
+
         lock.readLock().lock();
         try {
-            int totalNodes = 1;
-            int totalItems = items.size();
-            int maxDepthReached = depth;
+            OctreeSnapshot.Builder builder = new OctreeSnapshot.Builder();
+            Deque<Octree> nodes = new ArrayDeque<>();
+            Deque<Integer> indices = new ArrayDeque<>();
+            nodes.add(this);
+            indices.add(builder.reserveNode(boundary));
 
-            if (children != null) {
-                for (Octree child : children) {
-                    OctreeStats childStats = child.getStats();
-                    totalNodes += childStats.getTotalNodes();
-                    totalItems += childStats.getTotalItems();
-                    maxDepthReached = Math.max(maxDepthReached, childStats.getMaxDepth());
+            while (!nodes.isEmpty()) {
+                Octree node = nodes.poll();
+                int index = indices.poll();
+
+                builder.beginItems(index);
+                for (int i = 0; i < node.items.size(); i++) {
+                    builder.addItem(node.items, i);
+                }
+                builder.endItems(index);
+
+                if (node.children != null) {
+                    int firstChild = -1;
+                    for (Octree child : node.children) {
+                        int childIndex = builder.reserveNode(child.boundary);
+                        if (firstChild < 0) {
+                            firstChild = childIndex;
+                        }
+                        nodes.add(child);
+                        indices.add(childIndex);
+                    }
+                    builder.setFirstChild(index, firstChild);
                 }
             }
 
-            return new OctreeStats(totalNodes, totalItems, maxDepthReached);
+            return builder.build();
         } finally {
             lock.readLock().unlock();
         }
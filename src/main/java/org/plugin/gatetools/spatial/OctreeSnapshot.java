@@ -0,0 +1,233 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.spatial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 不可变八叉树快照
+ *
+ * 将八叉树展平为连续数组，构建完成后不再修改，可在任意线程中无锁查询。
+ * 子节点按广度优先顺序连续存放，查询时沿唯一包含查询点的路径向下迭代。
+ *
+ * @author NSrank, Augment
+ */
+public final class OctreeSnapshot implements PointIndex {
+    /** 空快照 */
+    public static final OctreeSnapshot EMPTY = new OctreeSnapshot(
+        new int[0], new int[0], new int[0], new int[0], new RangeArray());
+
+    // 每个节点占6个元素：minX, minY, minZ, maxX, maxY, maxZ
+    private final int[] nodeBounds;
+    // 第一个子节点的下标，-1表示叶子节点
+    private final int[] firstChild;
+    // 节点项目在items中的区间 [itemStart, itemEnd)
+    private final int[] itemStart;
+    private final int[] itemEnd;
+    private final RangeArray items;
+
+    // 线段查询的遍历栈，每个线程复用一个，只在扩容时重新分配
+    private static final ThreadLocal<int[]> SWEEP_STACK = ThreadLocal.withInitial(() -> new int[64]);
+
+    private OctreeSnapshot(int[] nodeBounds, int[] firstChild, int[] itemStart, int[] itemEnd, RangeArray items) {
+        this.nodeBounds = nodeBounds;
+        this.firstChild = firstChild;
+        this.itemStart = itemStart;
+        this.itemEnd = itemEnd;
+        this.items = items;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T first(int x, int y, int z) {
+        if (firstChild.length == 0 || !nodeContains(0, x, y, z)) {
+            return null;
+        }
+
+        int node = 0;
+        while (node >= 0) {
+            int index = items.firstContaining(itemStart[node], itemEnd[node], x, y, z);
+            if (index >= 0) {
+                return (T) items.getValue(index);
+            }
+            node = childContaining(node, x, y, z);
+        }
+        return null;
+    }
+
+    @Override
+    public <T> void query(int x, int y, int z, List<T> result) {
+        if (firstChild.length == 0 || !nodeContains(0, x, y, z)) {
+            return;
+        }
+
+        int node = 0;
+        while (node >= 0) {
+            items.collect(itemStart[node], itemEnd[node], x, y, z, result);
+            node = childContaining(node, x, y, z);
+        }
+    }
+
+    @Override
+    public <T> void querySwept(Segment3D segment, List<T> result) {
+        if (firstChild.length == 0 || !nodeIntersects(0, segment)) {
+            return;
+        }
+
+        // 线段可能穿过多个子节点，使用显式栈做深度优先遍历
+        int[] stack = SWEEP_STACK.get();
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            items.collectSwept(itemStart[node], itemEnd[node], segment, result);
+
+            int first = firstChild[node];
+            if (first < 0) {
+                continue;
+            }
+            for (int child = first; child < first + 8; child++) {
+                if (nodeIntersects(child, segment)) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                        SWEEP_STACK.set(stack);
+                    }
+                    stack[top++] = child;
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取快照中的节点数
+     */
+    public int getNodeCount() {
+        return firstChild.length;
+    }
+
+    /**
+     * 获取快照中的项目数
+     */
+    public int getItemCount() {
+        return items.size();
+    }
+
+    @Override
+    public long estimateBytes() {
+        return 4 * 16L + ((long) nodeBounds.length + firstChild.length * 3L) * Integer.BYTES + items.estimateBytes();
+    }
+
+    /**
+     * 查找包含指定点的子节点（子节点互不重叠，至多一个）
+     *
+     * @return 子节点下标，没有则返回-1
+     */
+    private int childContaining(int node, int x, int y, int z) {
+        int first = firstChild[node];
+        if (first < 0) {
+            return -1;
+        }
+        for (int child = first; child < first + 8; child++) {
+            if (nodeContains(child, x, y, z)) {
+                return child;
+            }
+        }
+        return -1;
+    }
+
+    private boolean nodeContains(int node, int x, int y, int z) {
+        int base = node * 6;
+        return x >= nodeBounds[base] && x <= nodeBounds[base + 3] &&
+               y >= nodeBounds[base + 1] && y <= nodeBounds[base + 4] &&
+               z >= nodeBounds[base + 2] && z <= nodeBounds[base + 5];
+    }
+
+    private boolean nodeIntersects(int node, Segment3D segment) {
+        int base = node * 6;
+        return segment.intersects(nodeBounds[base], nodeBounds[base + 1], nodeBounds[base + 2],
+                                  nodeBounds[base + 3], nodeBounds[base + 4], nodeBounds[base + 5]);
+    }
+
+    /**
+     * 快照构建器，由Octree在持有读锁时按广度优先顺序填充
+     */
+    static final class Builder {
+        private final List<int[]> bounds = new ArrayList<>();
+        private final List<Integer> firstChildren = new ArrayList<>();
+        private final List<Integer> starts = new ArrayList<>();
+        private final List<Integer> ends = new ArrayList<>();
+        private final RangeArray items = new RangeArray();
+
+        /**
+         * 预留一个节点位置
+         *
+         * @return 节点下标
+         */
+        int reserveNode(Range3D boundary) {
+            bounds.add(new int[] {
+                boundary.getMinX(), boundary.getMinY(), boundary.getMinZ(),
+                boundary.getMaxX(), boundary.getMaxY(), boundary.getMaxZ()
+            });
+            firstChildren.add(-1);
+            starts.add(0);
+            ends.add(0);
+            return bounds.size() - 1;
+        }
+
+        void setFirstChild(int node, int child) {
+            firstChildren.set(node, child);
+        }
+
+        void beginItems(int node) {
+            starts.set(node, items.size());
+        }
+
+        void addItem(RangeArray source, int index) {
+            items.add(source, index);
+        }
+
+        void endItems(int node) {
+            ends.set(node, items.size());
+        }
+
+        OctreeSnapshot build() {
+            int nodeCount = bounds.size();
+            int[] nodeBounds = new int[nodeCount * 6];
+            int[] firstChild = new int[nodeCount];
+            int[] itemStart = new int[nodeCount];
+            int[] itemEnd = new int[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                System.arraycopy(bounds.get(i), 0, nodeBounds, i * 6, 6);
+                firstChild[i] = firstChildren.get(i);
+                itemStart[i] = starts.get(i);
+                itemEnd[i] = ends.get(i);
+            }
+            items.trimToSize();
+            return new OctreeSnapshot(nodeBounds, firstChild, itemStart, itemEnd, items);
+        }
+    }
+}
@@ -24,20 +24,29 @@
 
 package org.plugin.gatetools.spatial;
 
+import java.util.Arrays;
+
 /**
  * 八叉树统计信息
  * 
+ * 除总量外还记录每层深度的项目数和单个节点的最大项目数，
+ * 用于确认项目分布在较深的层级上，点查询开销保持对数级。
+ * 
  * @author NSrank, Augment
  */
 public class OctreeStats {
     private final int totalNodes;
     private final int totalItems;
     private final int maxDepth;
+    private final int[] itemsPerDepth;
+    private final int maxItemsPerNode;
     
-    public OctreeStats(int totalNodes, int totalItems, int maxDepth) {
+    public OctreeStats(int totalNodes, int totalItems, int maxDepth, int[] itemsPerDepth, int maxItemsPerNode) {
         this.totalNodes = totalNodes;
         this.totalItems = totalItems;
         this.maxDepth = maxDepth;
+        this.itemsPerDepth = itemsPerDepth.clone();
+        this.maxItemsPerNode = maxItemsPerNode;
     }
     
     public int getTotalNodes() {
@@ -52,12 +61,32 @@ public class OctreeStats {
         return maxDepth;
     }
     
+    /**
+     * 获取每层深度的项目数，下标为相对统计起点的深度
+     */
+    public int[] getItemsPerDepth() {
+        return itemsPerDepth.clone();
+    }
+    
+    /**
+     * 获取指定深度的项目数
+     */
+    public int getItemsAtDepth(int depth) {
+        return depth >= 0 && depth < itemsPerDepth.length ? itemsPerDepth[depth] : 0;
+    }
+    
+    public int getMaxItemsPerNode() {
+        return maxItemsPerNode;
+    }
+    
     @Override
     public String toString() {
         return "OctreeStats{" +
                 "totalNodes=" + totalNodes +
                 ", totalItems=" + totalItems +
                 ", maxDepth=" + maxDepth +
+                ", maxItemsPerNode=" + maxItemsPerNode +
+                ", itemsPerDepth=" + Arrays.toString(itemsPerDepth) +
                 '}';
     }
 }
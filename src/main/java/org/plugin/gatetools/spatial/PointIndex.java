@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.spatial;
+
+import java.util.List;
+
+/**
+ * 只读点查询视图
+ *
+ * SpatialIndexManager按世界发布的查询接口，可在任意线程中调用，实现不会修改索引内容。
+ * 快照模式下发布的OctreeSnapshot和ChunkGateGrid是不可变的，查询无锁；
+ * 非快照模式下直接发布可变的Octree，每次查询获取其读锁。
+ *
+ * @author NSrank, Augment
+ */
+public interface PointIndex {
+
+    /**
+     * 查询包含指定点的第一个项目
+     *
+     * @return 关联数据，如果没有则返回null
+     */
+    <T> T first(int x, int y, int z);
+
+    /**
+     * 查询包含指定点的所有项目
+     *
+     * @param result 结果列表，匹配的关联数据会追加到其中
+     */
+    <T> void query(int x, int y, int z, List<T> result);
+
+    /**
+     * 查询被线段扫过的所有项目（判定规则见Segment3D.sweeps）
+     *
+     * @param segment 线段
+     * @param result 结果列表，匹配的关联数据会追加到其中（每个项目至多一次）
+     */
+    <T> void querySwept(Segment3D segment, List<T> result);
+
+    /**
+     * 估算索引占用的堆内存（字节），按实际分配的数组计算，不含关联数据本身
+     */
+    long estimateBytes();
+}
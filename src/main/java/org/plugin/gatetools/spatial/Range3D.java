@@ -98,6 +98,15 @@ public class Range3D {
                point.getZ() >= minZ && point.getZ() <= maxZ;
     }
     
+    /**
+     * 检查坐标是否在范围内
+     */
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX &&
+               y >= minY && y <= maxY &&
+               z >= minZ && z <= maxZ;
+    }
+    
     /**
      * 检查Location是否在范围内
      */
@@ -133,14 +142,25 @@ public class Range3D {
         );
     }
 
+    /**
+     * 检查范围能否分割（每个轴至少跨越2格）
+     */
+    public boolean canSubdivide() {
+        return minX < maxX && minY < maxY && minZ < maxZ;
+    }
+
     /**
      * 将范围分割为8个子范围（用于八叉树）
+     * 
+     * 分割点向下取整，保证负坐标下两半同样有效；调用前应先检查canSubdivide()
      */
     public Range3D[] subdivide() {
-        Point3D center = getCenter();
-        int centerX = center.getX();
-        int centerY = center.getY();
-        int centerZ = center.getZ();
+        if (!canSubdivide()) {
+            throw new IllegalStateException("Range too small to subdivide: " + this);
+        }
+        int centerX = splitPoint(minX, maxX);
+        int centerY = splitPoint(minY, maxY);
+        int centerZ = splitPoint(minZ, maxZ);
 
         return new Range3D[] {
             // 前下左
@@ -162,6 +182,10 @@ public class Range3D {
         };
     }
     
+    private static int splitPoint(int min, int max) {
+        return (int) Math.floorDiv((long) min + max, 2L);
+    }
+    
     // Getters
     public int getMinX() { return minX; }
     public int getMinY() { return minY; }
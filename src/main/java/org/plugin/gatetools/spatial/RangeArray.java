@@ -0,0 +1,289 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.spatial;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 紧凑的范围数组
+ *
+ * 以结构数组（minX[], minY[], ... maxZ[]）保存一组范围及其关联值，不为每个范围创建对象。
+ * 包含检测是对原始类型数组的紧凑循环，每个范围约占24字节加一个引用。
+ * 同一范围可以出现多次（例如两个边界完全相同的传送门），下标即条目编号。
+ * 本类不是线程安全的，由使用方负责同步；构建完成后不再修改的实例可以在线程间共享。
+ *
+ * @author NSrank, Augment
+ */
+public final class RangeArray {
+    private static final int[] EMPTY_INTS = new int[0];
+    private static final Object[] EMPTY_VALUES = new Object[0];
+
+    private int[] minX = EMPTY_INTS, minY = EMPTY_INTS, minZ = EMPTY_INTS;
+    private int[] maxX = EMPTY_INTS, maxY = EMPTY_INTS, maxZ = EMPTY_INTS;
+    private Object[] values = EMPTY_VALUES;
+    private int size;
+
+    public RangeArray() {
+    }
+
+    public RangeArray(int capacity) {
+        if (capacity > 0) {
+            resize(capacity);
+        }
+    }
+
+    /**
+     * 追加一个范围
+     *
+     * @return 新条目的下标
+     */
+    public int add(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, Object value) {
+        if (size == this.minX.length) {
+            resize(Math.max(4, size * 2));
+        }
+        this.minX[size] = minX;
+        this.minY[size] = minY;
+        this.minZ[size] = minZ;
+        this.maxX[size] = maxX;
+        this.maxY[size] = maxY;
+        this.maxZ[size] = maxZ;
+        this.values[size] = value;
+        return size++;
+    }
+
+    /**
+     * 追加一个范围
+     *
+     * @return 新条目的下标
+     */
+    public int add(Range3D range, Object value) {
+        return add(range.getMinX(), range.getMinY(), range.getMinZ(),
+            range.getMaxX(), range.getMaxY(), range.getMaxZ(), value);
+    }
+
+    /**
+     * 追加另一个数组中的条目
+     *
+     * @return 新条目的下标
+     */
+    public int add(RangeArray other, int index) {
+        return add(other.minX[index], other.minY[index], other.minZ[index],
+            other.maxX[index], other.maxY[index], other.maxZ[index], other.values[index]);
+    }
+
+    /**
+     * 移除条目，最后一个条目移动到该位置（不保持顺序）
+     */
+    public void removeAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int last = --size;
+        minX[index] = minX[last];
+        minY[index] = minY[last];
+        minZ[index] = minZ[last];
+        maxX[index] = maxX[last];
+        maxY[index] = maxY[last];
+        maxZ[index] = maxZ[last];
+        values[index] = values[last];
+        values[last] = null;
+    }
+
+    /**
+     * 查找边界和值都相同的条目
+     *
+     * @param value 关联值，按equals比较
+     * @return 条目下标，没有则返回-1
+     */
+    public int indexOf(Range3D range, Object value) {
+        int rMinX = range.getMinX(), rMinY = range.getMinY(), rMinZ = range.getMinZ();
+        int rMaxX = range.getMaxX(), rMaxY = range.getMaxY(), rMaxZ = range.getMaxZ();
+        for (int i = 0; i < size; i++) {
+            if (minX[i] == rMinX && minY[i] == rMinY && minZ[i] == rMinZ &&
+                maxX[i] == rMaxX && maxY[i] == rMaxY && maxZ[i] == rMaxZ &&
+                Objects.equals(values[i], value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 查找边界相同的第一个条目
+     *
+     * @return 条目下标，没有则返回-1
+     */
+    public int indexOf(Range3D range) {
+        int rMinX = range.getMinX(), rMinY = range.getMinY(), rMinZ = range.getMinZ();
+        int rMaxX = range.getMaxX(), rMaxY = range.getMaxY(), rMaxZ = range.getMaxZ();
+        for (int i = 0; i < size; i++) {
+            if (minX[i] == rMinX && minY[i] == rMinY && minZ[i] == rMinZ &&
+                maxX[i] == rMaxX && maxY[i] == rMaxY && maxZ[i] == rMaxZ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 检查条目是否包含指定坐标
+     */
+    public boolean contains(int index, int x, int y, int z) {
+        return x >= minX[index] && x <= maxX[index] &&
+               y >= minY[index] && y <= maxY[index] &&
+               z >= minZ[index] && z <= maxZ[index];
+    }
+
+    /**
+     * 在[from, to)中查找第一个包含指定坐标的条目
+     * 条目较多且启用了向量化扫描时使用LeafScan的向量化实现
+     *
+     * @return 条目下标，没有则返回-1
+     */
+    public int firstContaining(int from, int to, int x, int y, int z) {
+        return LeafScan.firstContaining(minX, minY, minZ, maxX, maxY, maxZ, from, to, x, y, z);
+    }
+
+    /**
+     * 将[from, to)中包含指定坐标的条目值追加到结果列表
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void collect(int from, int to, int x, int y, int z, List<T> result) {
+        for (int i = firstContaining(from, to, x, y, z); i >= 0; i = firstContaining(i + 1, to, x, y, z)) {
+            result.add((T) values[i]);
+        }
+    }
+
+    /**
+     * 将指定下标中包含坐标的条目值追加到结果列表
+     *
+     * @param ids 条目下标数组
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void collect(int[] ids, int x, int y, int z, List<T> result) {
+        for (int id : ids) {
+            if (contains(id, x, y, z)) {
+                result.add((T) values[id]);
+            }
+        }
+    }
+
+    /**
+     * 检查条目是否被线段扫过
+     */
+    public boolean sweptBy(int index, Segment3D segment) {
+        return segment.sweeps(minX[index], minY[index], minZ[index], maxX[index], maxY[index], maxZ[index]);
+    }
+
+    /**
+     * 将[from, to)中被线段扫过的条目值追加到结果列表
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void collectSwept(int from, int to, Segment3D segment, List<T> result) {
+        for (int i = from; i < to; i++) {
+            if (sweptBy(i, segment)) {
+                result.add((T) values[i]);
+            }
+        }
+    }
+
+    /**
+     * 检查条目是否与指定范围相交
+     */
+    public boolean intersects(int index, Range3D range) {
+        return !(maxX[index] < range.getMinX() || minX[index] > range.getMaxX() ||
+                 maxY[index] < range.getMinY() || minY[index] > range.getMaxY() ||
+                 maxZ[index] < range.getMinZ() || minZ[index] > range.getMaxZ());
+    }
+
+    /**
+     * 检查条目是否完全落在指定范围内
+     */
+    public boolean isWithin(int index, Range3D range) {
+        return minX[index] >= range.getMinX() && maxX[index] <= range.getMaxX() &&
+               minY[index] >= range.getMinY() && maxY[index] <= range.getMaxY() &&
+               minZ[index] >= range.getMinZ() && maxZ[index] <= range.getMaxZ();
+    }
+
+    /**
+     * 为条目创建Range3D对象（会分配新对象，只用于非热路径）
+     */
+    public Range3D getRange(int index) {
+        return new Range3D(minX[index], minY[index], minZ[index], maxX[index], maxY[index], maxZ[index]);
+    }
+
+    public int getMinX(int index) { return minX[index]; }
+    public int getMinY(int index) { return minY[index]; }
+    public int getMinZ(int index) { return minZ[index]; }
+    public int getMaxX(int index) { return maxX[index]; }
+    public int getMaxY(int index) { return maxY[index]; }
+    public int getMaxZ(int index) { return maxZ[index]; }
+
+    public Object getValue(int index) {
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * 估算占用的堆内存（字节），按已分配的容量计算，不含关联值本身
+     */
+    public long estimateBytes() {
+        // 6个int数组和1个引用数组，每个数组头部约16字节，引用按压缩指针4字节计算
+        return 7 * 16L + (long) minX.length * (6 * Integer.BYTES + 4);
+    }
+
+    /**
+     * 将容量缩减到实际大小，用于构建完成后不再修改的数组
+     */
+    public void trimToSize() {
+        if (size < minX.length) {
+            resize(size);
+        }
+    }
+
+    private void resize(int capacity) {
+        minX = Arrays.copyOf(minX, capacity);
+        minY = Arrays.copyOf(minY, capacity);
+        minZ = Arrays.copyOf(minZ, capacity);
+        maxX = Arrays.copyOf(maxX, capacity);
+        maxY = Arrays.copyOf(maxY, capacity);
+        maxZ = Arrays.copyOf(maxZ, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+}
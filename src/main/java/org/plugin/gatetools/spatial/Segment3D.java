@@ -0,0 +1,155 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.spatial;
+
+/**
+ * 3D线段
+ * 
+ * 表示玩家一次移动经过的路径（从起点到终点），用于检测高速移动时一次跨过的传送门。
+ * 范围按方块计算：方块范围[min, max]对应连续空间中的[min, max + 1)。
+ * 线段可以通过set重新设置端点以便在热路径上重复使用，因此不是线程安全的，不应在线程间共享。
+ * 
+ * @author NSrank, Augment
+ */
+public final class Segment3D {
+    private double x0;
+    private double y0;
+    private double z0;
+    private double dx;
+    private double dy;
+    private double dz;
+    // 方向分量的倒数，分量为0时不使用
+    private double invDx;
+    private double invDy;
+    private double invDz;
+    
+    private int startX;
+    private int startY;
+    private int startZ;
+    private int endX;
+    private int endY;
+    private int endZ;
+    
+    public Segment3D(double x0, double y0, double z0, double x1, double y1, double z1) {
+        set(x0, y0, z0, x1, y1, z1);
+    }
+    
+    /**
+     * 重新设置线段的起点和终点
+     * 
+     * @return 当前线段
+     */
+    public Segment3D set(double x0, double y0, double z0, double x1, double y1, double z1) {
+        this.x0 = x0;
+        this.y0 = y0;
+        this.z0 = z0;
+        this.dx = x1 - x0;
+        this.dy = y1 - y0;
+        this.dz = z1 - z0;
+        this.invDx = 1.0 / dx;
+        this.invDy = 1.0 / dy;
+        this.invDz = 1.0 / dz;
+        this.startX = (int) Math.floor(x0);
+        this.startY = (int) Math.floor(y0);
+        this.startZ = (int) Math.floor(z0);
+        this.endX = (int) Math.floor(x1);
+        this.endY = (int) Math.floor(y1);
+        this.endZ = (int) Math.floor(z1);
+        return this;
+    }
+    
+    /**
+     * 检查线段是否与方块范围相交（slab算法）
+     * 任意一个轴上的进入/离开参数区间为空时立即返回
+     */
+    public boolean intersects(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        double tMin = 0.0;
+        double tMax = 1.0;
+        
+        if (dx == 0.0) {
+            if (x0 < minX || x0 >= maxX + 1.0) return false;
+        } else {
+            double t1 = (minX - x0) * invDx;
+            double t2 = (maxX + 1.0 - x0) * invDx;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+            if (tMin > tMax) return false;
+        }
+        
+        if (dy == 0.0) {
+            if (y0 < minY || y0 >= maxY + 1.0) return false;
+        } else {
+            double t1 = (minY - y0) * invDy;
+            double t2 = (maxY + 1.0 - y0) * invDy;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+            if (tMin > tMax) return false;
+        }
+        
+        if (dz == 0.0) {
+            return z0 >= minZ && z0 < maxZ + 1.0;
+        }
+        double t1 = (minZ - z0) * invDz;
+        double t2 = (maxZ + 1.0 - z0) * invDz;
+        tMin = Math.max(tMin, Math.min(t1, t2));
+        tMax = Math.min(tMax, Math.max(t1, t2));
+        return tMin <= tMax;
+    }
+    
+    public boolean intersects(Range3D range) {
+        return intersects(range.getMinX(), range.getMinY(), range.getMinZ(),
+            range.getMaxX(), range.getMaxY(), range.getMaxZ());
+    }
+    
+    /**
+     * 检查线段是否扫过方块范围
+     * 即与范围相交，且不是"起点在范围内、终点在范围外"的情况（本次移动已离开的范围不算扫过）
+     */
+    public boolean sweeps(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        boolean endInside = endX >= minX && endX <= maxX &&
+                            endY >= minY && endY <= maxY &&
+                            endZ >= minZ && endZ <= maxZ;
+        if (!endInside &&
+            startX >= minX && startX <= maxX &&
+            startY >= minY && startY <= maxY &&
+            startZ >= minZ && startZ <= maxZ) {
+            return false;
+        }
+        return endInside || intersects(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+    
+    public int getStartX() { return startX; }
+    public int getStartY() { return startY; }
+    public int getStartZ() { return startZ; }
+    public int getEndX() { return endX; }
+    public int getEndY() { return endY; }
+    public int getEndZ() { return endZ; }
+    
+    @Override
+    public String toString() {
+        return "Segment3D{(" + x0 + ", " + y0 + ", " + z0 + ") -> (" +
+               (x0 + dx) + ", " + (y0 + dy) + ", " + (z0 + dz) + ")}";
+    }
+}
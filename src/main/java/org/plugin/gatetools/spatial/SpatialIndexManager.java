@@ -24,34 +24,106 @@
 
 package org.plugin.gatetools.spatial;
 
-import org.bukkit.Location;
 import org.bukkit.World;
 import org.plugin.gatetools.GateTools;
 import org.plugin.gatetools.model.Gate;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
 
 /**
  * 空间索引管理器
  * 
- * 使用八叉树为每个世界管理传送门的空间索引，提供高效的空间查询
+ * 使用八叉树为每个世界管理传送门的空间索引，提供高效的空间查询。
+ * 每个世界的八叉树根节点是包围该世界全部传送门的立方体，传送门超出边界时整体扩大并重建。
+ * 启用快照模式或区块网格后端时，每次写操作后都会为受影响的世界重建不可变索引，
+ * 并通过volatile引用整体发布，查询路径不获取任何锁。
+ * 索引中的值不限于Gate对象：addEntry/query可以保存和返回传送门名称等轻量引用，
+ * 因此查询方法按调用方给出的值类型返回，不假定值是Gate；按传送门查询请使用GateManager。
+ * 每个世界名称分配一个固定的整数编号，已发布的索引按编号存放在数组中；
+ * 热路径通过getWorldId(World)按对象身份解析编号，之后的查询只需一次数组访问。
+ * 世界卸载后释放其索引（保留范围数据），再次加载时重建。
  * 
  * @author NSrank, Augment
  */
 public class SpatialIndexManager {
-    private final GateTools plugin;
+    private final Logger logger;
+    private final Supplier<SpatialIndexSettings> settingsSupplier;
     private final ConcurrentHashMap<String, Octree> worldOctrees = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<Range3D, Gate> rangeToGate = new ConcurrentHashMap<>();
+    // 世界名称 -> 该世界的全部范围和值，只在持有writeLock时访问
+    private final Map<String, RangeArray> worldEntries = new HashMap<>();
+    // 世界名称 -> 该世界各区块的范围覆盖计数，随范围增删增量更新，只在持有writeLock时修改
+    private final Map<String, ChunkOccupancy> worldChunks = new HashMap<>();
     
-    // 八叉树配置
-    private static final int MAX_DEPTH = 10;
-    private static final int MAX_ITEMS = 10;
-    private static final int WORLD_SIZE = 60000000; // Minecraft世界边界
+    // 写操作互斥锁，保证快照按写入顺序发布
+    private final Object writeLock = new Object();
+    // 世界名称 -> 世界编号，编号分配后不再改变
+    private final ConcurrentHashMap<String, Integer> worldIds = new ConcurrentHashMap<>();
+    // 已卸载的世界，只保留范围数据而不建立索引，只在持有writeLock时访问
+    private final Set<String> unloadedWorlds = new HashSet<>();
+    // 世界编号 -> 已加载的World对象，用于按对象身份解析编号，写时复制
+    private volatile World[] loadedWorlds = new World[0];
+    // 世界编号 -> 查询用的索引和区块集合，只在持有writeLock时写时复制整体替换
+    private volatile WorldIndex[] worldIndexes = new WorldIndex[0];
+    // 索引代数，每次索引内容变化时递增，调用方据此判断缓存的查询结果是否仍然有效
+    private volatile long generation;
+    private volatile SpatialIndexSettings settings;
+    private volatile boolean snapshotMode;
+    
+    // 八叉树根节点配置：边长为2的幂，至少MIN_ROOT_SIZE，四周预留ROOT_PADDING
+    private static final int MIN_ROOT_SIZE = 256;
+    private static final int ROOT_PADDING = 16;
+    
+    /**
+     * 索引后端类型
+     */
+    public enum Backend {
+        OCTREE("octree"),
+        CHUNK_GRID("chunk-grid");
+        
+        private final String key;
+        
+        Backend(String key) {
+            this.key = key;
+        }
+        
+        public String getKey() {
+            return key;
+        }
+        
+        public static Backend fromKey(String key) {
+            for (Backend backend : values()) {
+                if (backend.key.equalsIgnoreCase(key)) {
+                    return backend;
+                }
+            }
+            return null;
+        }
+    }
     
     public SpatialIndexManager(GateTools plugin) {
-        this.plugin = plugin;
+        this(plugin.getLogger(), plugin.getConfigManager()::getSpatialIndexSettings);
+    }
+    
+    /**
+     * 创建不依赖插件实例的空间索引管理器（用于基准测试等场景）
+     * 
+     * @param logger 日志记录器
+     * @param settingsSupplier 配置提供者，每次清空索引时重新读取
+     */
+    public SpatialIndexManager(Logger logger, Supplier<SpatialIndexSettings> settingsSupplier) {
+        this.logger = logger;
+        this.settingsSupplier = settingsSupplier;
+        loadSettings();
     }
     
     /**
@@ -60,20 +132,40 @@ public class SpatialIndexManager {
      * @param gate 传送门
      */
     public void addGate(Gate gate) {
-        String worldName = gate.getCorner1().getWorldName();
-        
-        // 确保世界的八叉树存在
-        Octree octree = worldOctrees.computeIfAbsent(worldName, this::createOctreeForWorld);
-        
-        // 创建传送门的空间范围
-        Range3D gateRange = createGateRange(gate);
-        
-        // 添加到八叉树和映射
-        octree.insert(gateRange, gate);
-        rangeToGate.put(gateRange, gate);
-        
-        if (plugin.getConfigManager().isDebugEnabled()) {
-            plugin.getLogger().info("添加传送门到空间索引: " + gate.getConfigName() + " 范围: " + gateRange);
+        addEntry(gate.getCorner1().getWorldName(), createGateRange(gate), gate);
+    }
+    
+    /**
+     * 添加一个范围到空间索引，查询时原样返回value
+     * 
+     * @param worldName 世界名称
+     * @param range 范围
+     * @param value 值
+     */
+    public void addEntry(String worldName, Range3D range, Object value) {
+        synchronized (writeLock) {
+            worldEntries.computeIfAbsent(worldName, k -> new RangeArray()).add(range, value);
+            worldChunks.computeIfAbsent(worldName, k -> new ChunkOccupancy())
+                .add(range.getMinX(), range.getMinZ(), range.getMaxX(), range.getMaxZ());
+            if (unloadedWorlds.contains(worldName)) {
+                return;
+            }
+            
+            // 添加到八叉树，世界尚无索引或超出根节点边界时重建该世界的八叉树
+            Octree octree = worldOctrees.get(worldName);
+            if (octree == null || !octree.getBoundary().contains(range)) {
+                Octree oldOctree = octree;
+                octree = rerootWorld(worldName, oldOctree);
+                publish(worldName, octree);
+                retire(oldOctree, snapshotMode);
+            } else {
+                octree.insert(range, value);
+                publish(worldName, octree);
+            }
+            
+            if (settings.isDebug()) {
+                logger.info("添加传送门到空间索引: " + describe(value) + " 范围: " + range);
+            }
         }
     }
     
@@ -83,66 +175,244 @@ public class SpatialIndexManager {
      * @param gate 传送门
      */
     public void removeGate(Gate gate) {
-        String worldName = gate.getCorner1().getWorldName();
-        Octree octree = worldOctrees.get(worldName);
-        
-        if (octree != null) {
-            Range3D gateRange = createGateRange(gate);
-            octree.remove(gateRange);
-            rangeToGate.remove(gateRange);
-            
-            if (plugin.getConfigManager().isDebugEnabled()) {
-                plugin.getLogger().info("从空间索引移除传送门: " + gate.getConfigName());
+        removeEntry(gate.getCorner1().getWorldName(), createGateRange(gate), gate);
+    }
+    
+    /**
+     * 从空间索引中移除一个范围
+     * 边界相同的多个条目中只移除值相同（equals）的那一个
+     * 
+     * @param worldName 世界名称
+     * @param range 范围
+     * @param value 添加时的值
+     */
+    public void removeEntry(String worldName, Range3D range, Object value) {
+        synchronized (writeLock) {
+            RangeArray entries = worldEntries.get(worldName);
+            if (entries != null) {
+                int index = entries.indexOf(range, value);
+                if (index >= 0) {
+                    entries.removeAt(index);
+                    worldChunks.get(worldName).remove(range.getMinX(), range.getMinZ(), range.getMaxX(), range.getMaxZ());
+                }
+                
+                // 已卸载的世界没有八叉树，只需更新范围数据
+                Octree octree = worldOctrees.get(worldName);
+                if (octree != null) {
+                    octree.remove(range, value);
+                    publish(worldName, octree);
+                }
+                
+                if (settings.isDebug()) {
+                    logger.info("从空间索引移除传送门: " + describe(value));
+                }
             }
         }
     }
     
     /**
-     * 查询指定位置的传送门
+     * 查询指定方块坐标的索引值，结果追加到调用方提供的列表中
      * 
-     * @param location 位置
-     * @return 包含该位置的传送门列表
+     * @param worldName 世界名称
+     * @param result 结果列表（可重复使用）
      */
-    public List<Gate> queryGates(Location location) {
-        String worldName = location.getWorld().getName();
-        Octree octree = worldOctrees.get(worldName);
-        
-        if (octree == null) {
-            return new ArrayList<>();
+    public <T> void query(String worldName, int x, int y, int z, List<T> result) {
+        query(getWorldId(worldName), x, y, z, result);
+    }
+    
+    /**
+     * 查询指定方块坐标的索引值，结果追加到调用方提供的列表中
+     * 快照模式下整个查询过程不分配任何对象
+     * 
+     * @param worldId 世界编号（见getWorldId）
+     * @param result 结果列表（可重复使用）
+     */
+    public <T> void query(int worldId, int x, int y, int z, List<T> result) {
+        PointIndex index = getIndex(worldId);
+        if (index != null) {
+            index.query(x, y, z, result);
         }
-        
-        Point3D point = new Point3D(location);
-        List<Range3D> ranges = octree.queryRanges(point);
-        
-        List<Gate> gates = new ArrayList<>();
-        for (Range3D range : ranges) {
-            Gate gate = rangeToGate.get(range);
-            if (gate != null) {
-                gates.add(gate);
+    }
+    
+    /**
+     * 查询被线段扫过的索引值，结果追加到调用方提供的列表中
+     * 
+     * @param worldId 世界编号（见getWorldId）
+     * @param segment 线段（通常为玩家一次移动的起点到终点）
+     * @param result 结果列表（可重复使用）
+     */
+    public <T> void querySwept(int worldId, Segment3D segment, List<T> result) {
+        PointIndex index = getIndex(worldId);
+        if (index != null) {
+            index.querySwept(segment, result);
+        }
+    }
+    
+    /**
+     * 批量查询同一世界中多个方块坐标的索引值
+     * 世界索引只解析一次，第i个坐标的结果位于result中[ends[i-1], ends[i])区间（i为0时从0开始）
+     * 
+     * @param worldId 世界编号（见getWorldId）
+     * @param coords 坐标数组，每个坐标占3个元素：x, y, z
+     * @param count 坐标数量
+     * @param result 结果列表（可重复使用）
+     * @param ends 输出：每个坐标的结果在列表中的结束位置，长度至少为count
+     */
+    public <T> void queryBatch(int worldId, int[] coords, int count, List<T> result, int[] ends) {
+        PointIndex index = getIndex(worldId);
+        for (int i = 0; i < count; i++) {
+            if (index != null) {
+                index.query(coords[i * 3], coords[i * 3 + 1], coords[i * 3 + 2], result);
             }
+            ends[i] = result.size();
         }
-        
-        return gates;
     }
     
     /**
-     * 查询指定位置的第一个传送门
+     * 获取索引代数
+     * 添加、移除或重建任何世界的索引后该值都会改变
+     */
+    public long getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * 检查区块中是否可能有传送门
+     * 只做一次原始类型哈希查找，不访问空间索引（非快照模式下获取区块集合的读锁）；
+     * 返回false时该区块内的任何查询都不会有结果
      * 
-     * @param location 位置
-     * @return 包含该位置的第一个传送门，如果没有则返回null
+     * @param worldId 世界编号（见getWorldId）
+     * @param chunkX 区块X坐标
+     * @param chunkZ 区块Z坐标
      */
-    public Gate queryFirstGate(Location location) {
-        String worldName = location.getWorld().getName();
-        Octree octree = worldOctrees.get(worldName);
-        
-        if (octree == null) {
-            return null;
+    public boolean hasGatesInChunk(int worldId, int chunkX, int chunkZ) {
+        WorldIndex world = getWorldIndex(worldId);
+        return world != null && world.chunks.contains(chunkX, chunkZ);
+    }
+    
+    /**
+     * 检查矩形区块范围内是否可能有传送门
+     * 
+     * @param worldId 世界编号（见getWorldId）
+     */
+    public boolean hasGatesInChunks(int worldId, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        WorldIndex world = getWorldIndex(worldId);
+        return world != null && world.chunks.containsAny(minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+    }
+    
+    /**
+     * 查询包含指定方块坐标的第一个索引值
+     * 
+     * @param worldId 世界编号（见getWorldId）
+     * @return 索引值，如果没有则返回null
+     */
+    public <T> T first(int worldId, int x, int y, int z) {
+        PointIndex index = getIndex(worldId);
+        return index != null ? index.first(x, y, z) : null;
+    }
+    
+    /**
+     * 按对象身份解析世界编号
+     * 已通过loadWorld登记的世界只需遍历一个很小的数组，未登记时回退到按名称查找
+     * 
+     * @param world 世界
+     * @return 世界编号，该世界从未有过传送门时返回-1
+     */
+    public int getWorldId(World world) {
+        World[] worlds = loadedWorlds;
+        for (int i = 0; i < worlds.length; i++) {
+            if (worlds[i] == world) {
+                return i;
+            }
+        }
+        return getWorldId(world.getName());
+    }
+    
+    /**
+     * 按名称查找世界编号
+     * 
+     * @param worldName 世界名称
+     * @return 世界编号，该世界从未有过传送门时返回-1
+     */
+    public int getWorldId(String worldName) {
+        Integer id = worldIds.get(worldName);
+        return id != null ? id : -1;
+    }
+    
+    /**
+     * 登记已加载的世界（插件启用时及WorldLoadEvent中调用）
+     * 之前被卸载的世界会用保留的范围数据重建索引
+     * 
+     * @param world 世界
+     */
+    public void loadWorld(World world) {
+        synchronized (writeLock) {
+            String worldName = world.getName();
+            int id = assignWorldId(worldName);
+            World[] worlds = Arrays.copyOf(loadedWorlds, Math.max(loadedWorlds.length, id + 1));
+            worlds[id] = world;
+            loadedWorlds = worlds;
+            
+            if (unloadedWorlds.remove(worldName)) {
+                RangeArray entries = worldEntries.get(worldName);
+                if (entries != null) {
+                    rebuildWorldIndex(worldName, entries);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 释放已卸载世界的索引（WorldUnloadEvent中调用）
+     * 范围数据继续保留并接受修改，世界再次加载时重建索引
+     * 
+     * @param world 世界
+     */
+    public void unloadWorld(World world) {
+        synchronized (writeLock) {
+            String worldName = world.getName();
+            int id = assignWorldId(worldName);
+            if (id < loadedWorlds.length && loadedWorlds[id] != null) {
+                World[] worlds = loadedWorlds.clone();
+                worlds[id] = null;
+                loadedWorlds = worlds;
+            }
+            
+            unloadedWorlds.add(worldName);
+            Octree octree = worldOctrees.remove(worldName);
+            setWorldIndex(id, null);
+            retire(octree, snapshotMode);
+            
+            if (settings.isDebug()) {
+                logger.info("世界 " + worldName + " 已卸载，释放其空间索引");
+            }
         }
-        
-        Point3D point = new Point3D(location);
-        Range3D range = octree.firstRange(point);
-        
-        return range != null ? rangeToGate.get(range) : null;
+    }
+    
+    /**
+     * 获取世界当前用于查询的索引
+     * 快照模式下为已发布的不可变索引，否则为加锁的八叉树
+     */
+    private PointIndex getIndex(int worldId) {
+        WorldIndex world = getWorldIndex(worldId);
+        return world != null ? world.index : null;
+    }
+    
+    private WorldIndex getWorldIndex(int worldId) {
+        WorldIndex[] indexes = worldIndexes;
+        return worldId >= 0 && worldId < indexes.length ? indexes[worldId] : null;
+    }
+    
+    /**
+     * 获取或分配世界编号（调用方需持有writeLock）
+     */
+    private int assignWorldId(String worldName) {
+        Integer id = worldIds.get(worldName);
+        if (id == null) {
+            id = worldIds.size();
+            worldIds.put(worldName, id);
+        }
+        return id;
     }
     
     /**
@@ -152,34 +422,112 @@ public class SpatialIndexManager {
      * @param gates 该世界的所有传送门
      */
     public void rebuildWorldIndex(String worldName, List<Gate> gates) {
-        // 关闭旧的八叉树
-        Octree oldOctree = worldOctrees.get(worldName);
-        if (oldOctree != null) {
-            oldOctree.close();
-        }
-        
-        // 创建新的八叉树
-        Octree newOctree = createOctreeForWorld(worldName);
-        worldOctrees.put(worldName, newOctree);
-        
-        // 清理旧的映射
-        rangeToGate.entrySet().removeIf(entry -> {
-            Gate gate = entry.getValue();
-            return gate.getCorner1().getWorldName().equals(worldName);
-        });
-        
-        // 添加所有传送门
+        RangeArray entries = new RangeArray(gates.size());
         for (Gate gate : gates) {
             if (gate.getCorner1().getWorldName().equals(worldName)) {
-                Range3D gateRange = createGateRange(gate);
-                newOctree.insert(gateRange, gate);
-                rangeToGate.put(gateRange, gate);
+                addGateRange(entries, gate, gate);
             }
         }
-        
-        if (plugin.getConfigManager().isDebugEnabled()) {
-            OctreeStats stats = newOctree.getStats();
-            plugin.getLogger().info("重建世界 " + worldName + " 的空间索引: " + stats);
+        rebuildWorldIndex(worldName, entries);
+    }
+    
+    /**
+     * 用给定的范围和值重建指定世界的空间索引
+     * 
+     * @param worldName 世界名称
+     * @param entries 该世界的全部范围和值，之后由索引持有，调用方不应再修改
+     */
+    public void rebuildWorldIndex(String worldName, RangeArray entries) {
+        synchronized (writeLock) {
+            worldEntries.put(worldName, entries);
+            worldChunks.put(worldName, ChunkOccupancy.build(entries));
+            if (unloadedWorlds.contains(worldName)) {
+                return;
+            }
+            
+            // 按传送门实际分布一次性批量构建新的八叉树，发布后再处理旧的八叉树
+            Octree oldOctree = worldOctrees.get(worldName);
+            Octree newOctree = buildOctree(entries, 0);
+            worldOctrees.put(worldName, newOctree);
+            publish(worldName, newOctree);
+            retire(oldOctree, snapshotMode);
+            
+            if (settings.isDebug()) {
+                OctreeStats stats = newOctree.getStats();
+                logger.info("重建世界 " + worldName + " 的空间索引: " + stats);
+            }
+        }
+    }
+    
+    /**
+     * 用给定的传送门集合重建全部空间索引
+     * 每个世界只构建并发布一次快照
+     * 
+     * @param gates 所有传送门
+     */
+    public void rebuildIndex(Collection<Gate> gates) {
+        Map<String, RangeArray> entriesByWorld = new HashMap<>();
+        for (Gate gate : gates) {
+            RangeArray entries = entriesByWorld.computeIfAbsent(gate.getCorner1().getWorldName(), k -> new RangeArray());
+            addGateRange(entries, gate, gate);
+        }
+        rebuildIndex(entriesByWorld);
+    }
+    
+    /**
+     * 用按世界分组的范围和值重建全部空间索引
+     * 新的八叉树和索引先在旁边构建完成，再一次性替换已发布的索引（代数只递增一次），
+     * 重建期间的查询始终看到完整的旧索引或完整的新索引，不会短暂地查不到传送门。
+     * 同时重新读取索引配置
+     * 
+     * @param entriesByWorld 世界名称 -> 该世界的全部范围和值，之后由索引持有
+     */
+    public void rebuildIndex(Map<String, RangeArray> entriesByWorld) {
+        synchronized (writeLock) {
+            // 旧八叉树是否只被快照引用（重新读取配置前记录）
+            boolean oldSnapshotMode = snapshotMode;
+            loadSettings();
+            
+            Map<String, Octree> newOctrees = new HashMap<>();
+            Map<String, ChunkOccupancy> newChunks = new HashMap<>();
+            Map<Integer, WorldIndex> newIndexes = new HashMap<>();
+            for (Map.Entry<String, RangeArray> entry : entriesByWorld.entrySet()) {
+                String worldName = entry.getKey();
+                int id = assignWorldId(worldName);
+                ChunkOccupancy chunks = ChunkOccupancy.build(entry.getValue());
+                newChunks.put(worldName, chunks);
+                if (unloadedWorlds.contains(worldName)) {
+                    continue;
+                }
+                Octree octree = buildOctree(entry.getValue(), 0);
+                newOctrees.put(worldName, octree);
+                newIndexes.put(id, buildWorldIndex(entry.getValue(), chunks, octree));
+            }
+            
+            WorldIndex[] indexes = new WorldIndex[worldIds.size()];
+            for (Map.Entry<Integer, WorldIndex> entry : newIndexes.entrySet()) {
+                indexes[entry.getKey()] = entry.getValue();
+            }
+            List<Octree> oldOctrees = new ArrayList<>(worldOctrees.values());
+            
+            worldEntries.clear();
+            worldEntries.putAll(entriesByWorld);
+            worldChunks.clear();
+            worldChunks.putAll(newChunks);
+            worldOctrees.clear();
+            worldOctrees.putAll(newOctrees);
+            worldIndexes = indexes;
+            generation++;
+            
+            for (Octree octree : oldOctrees) {
+                retire(octree, oldSnapshotMode);
+            }
+            
+            if (settings.isDebug()) {
+                for (Map.Entry<String, Octree> entry : newOctrees.entrySet()) {
+                    logger.info("重建世界 " + entry.getKey() + " 的空间索引: " + entry.getValue().getStats());
+                }
+            }
         }
     }
     
@@ -190,56 +538,303 @@ public class SpatialIndexManager {
         StringBuilder sb = new StringBuilder();
         sb.append("空间索引统计:\n");
         
+        sb.append("  后端: ").append(settings.getBackend().getKey()).append("\n");
+        
         for (ConcurrentHashMap.Entry<String, Octree> entry : worldOctrees.entrySet()) {
             String worldName = entry.getKey();
             Octree octree = entry.getValue();
             OctreeStats stats = octree.getStats();
             
-            sb.append("  世界 ").append(worldName).append(": ").append(stats).append("\n");
+            sb.append("  世界 ").append(worldName).append(": ").append(stats);
+            WorldIndex world = getWorldIndex(getWorldId(worldName));
+            if (world != null) {
+                if (world.index instanceof ChunkGateGrid) {
+                    sb.append(" ").append(world.index);
+                }
+                sb.append(" 含传送门区块: ").append(world.chunks.size());
+            }
+            sb.append("\n");
+        }
+        
+        synchronized (writeLock) {
+            if (!unloadedWorlds.isEmpty()) {
+                sb.append("  已卸载的世界: ").append(unloadedWorlds).append("\n");
+            }
         }
         
         return sb.toString();
     }
     
+    /**
+     * 估算空间索引占用的堆内存（字节）
+     * 按范围数组、八叉树和已发布索引实际分配的数组计算，不含索引值（传送门或名称）本身
+     */
+    public long estimateMemoryUsage() {
+        synchronized (writeLock) {
+            long bytes = 0;
+            for (RangeArray entries : worldEntries.values()) {
+                bytes += entries.estimateBytes();
+            }
+            for (Octree octree : worldOctrees.values()) {
+                bytes += octree.estimateBytes();
+            }
+            for (ChunkOccupancy chunks : worldChunks.values()) {
+                bytes += chunks.estimateBytes();
+            }
+            for (WorldIndex world : worldIndexes) {
+                if (world == null) {
+                    continue;
+                }
+                // 快照模式下发布的是区块集合的副本，否则就是上面已统计的区块集合
+                if (snapshotMode) {
+                    bytes += world.chunks.estimateBytes();
+                }
+                // 非快照模式下发布的就是上面已统计的八叉树
+                if (!(world.index instanceof Octree)) {
+                    bytes += world.index.estimateBytes();
+                }
+            }
+            return bytes;
+        }
+    }
+    
     /**
      * 清空所有空间索引
+     * 同时重新读取索引配置（重载时生效）
      */
     public void clear() {
-        for (Octree octree : worldOctrees.values()) {
+        synchronized (writeLock) {
+            List<Octree> oldOctrees = new ArrayList<>(worldOctrees.values());
+            worldOctrees.clear();
+            worldEntries.clear();
+            worldChunks.clear();
+            worldIndexes = new WorldIndex[0];
+            generation++;
+            for (Octree octree : oldOctrees) {
+                retire(octree, snapshotMode);
+            }
+            loadSettings();
+        }
+    }
+    
+    /**
+     * 读取索引配置
+     */
+    private void loadSettings() {
+        settings = settingsSupplier.get();
+        snapshotMode = settings.isPublishedIndex();
+        
+        boolean vectorEnabled = LeafScan.configure(settings.isVectorScan(), settings.getVectorScanMinItems());
+        if (settings.isVectorScan() && !vectorEnabled) {
+            logger.warning("向量化叶子扫描不可用（插件需以 -Pvector 构建，启动参数需添加 --add-modules jdk.incubator.vector），使用标量扫描");
+        } else if (vectorEnabled && settings.isDebug()) {
+            logger.info("已启用向量化叶子扫描，最小项目数: " + settings.getVectorScanMinItems());
+        }
+    }
+    
+    /**
+     * 发布世界查询用的索引和区块集合（调用方需持有writeLock）
+     * 快照模式下发布不可变索引和区块集合的副本，否则直接发布加锁的八叉树和增量维护的区块集合，
+     * 此时单次增删的开销与世界中的传送门总数无关
+     */
+    private void publish(String worldName, Octree octree) {
+        setWorldIndex(assignWorldId(worldName),
+            buildWorldIndex(worldEntries.get(worldName), worldChunks.get(worldName), octree));
+    }
+    
+    /**
+     * 构建世界查询用的索引和区块集合，不发布
+     * 
+     * @param entries 该世界的全部范围和值，可为null
+     * @param chunks 该世界的区块集合，可为null
+     * @param octree 该世界的八叉树
+     */
+    private WorldIndex buildWorldIndex(RangeArray entries, ChunkOccupancy chunks, Octree octree) {
+        PointIndex index;
+        if (!snapshotMode) {
+            index = octree;
+        } else if (settings.getBackend() == Backend.CHUNK_GRID) {
+            index = ChunkGateGrid.build(entries != null ? entries : new RangeArray());
+        } else {
+            index = octree.snapshot();
+        }
+        if (chunks == null) {
+            chunks = ChunkOccupancy.EMPTY;
+        } else if (snapshotMode) {
+            chunks = chunks.copy();
+        }
+        return new WorldIndex(index, chunks);
+    }
+    
+    /**
+     * 替换世界编号对应的索引（调用方需持有writeLock）
+     */
+    private void setWorldIndex(int worldId, WorldIndex world) {
+        WorldIndex[] indexes = Arrays.copyOf(worldIndexes, Math.max(worldIndexes.length, worldId + 1));
+        indexes[worldId] = world;
+        worldIndexes = indexes;
+        generation++;
+    }
+    
+    /**
+     * 用包含该世界全部传送门的新边界重建八叉树（调用方需持有writeLock）
+     * 新边界至少是旧边界的两倍，频繁在边缘添加传送门时重建次数为对数级。
+     * 旧的八叉树不在这里关闭，由调用方在新索引发布后交给retire处理
+     * 
+     * @param worldName 世界名称
+     * @param oldOctree 旧的八叉树，可为null
+     * @return 新的八叉树
+     */
+    private Octree rerootWorld(String worldName, Octree oldOctree) {
+        RangeArray entries = worldEntries.computeIfAbsent(worldName, k -> new RangeArray());
+        
+        long minSize = 0;
+        if (oldOctree != null) {
+            Range3D oldBoundary = oldOctree.getBoundary();
+            minSize = ((long) oldBoundary.getMaxX() - oldBoundary.getMinX() + 1) * 2;
+        }
+        
+        Octree octree = buildOctree(entries, minSize);
+        worldOctrees.put(worldName, octree);
+        
+        if (settings.isDebug() && oldOctree != null) {
+            logger.info("扩展世界 " + worldName + " 的空间索引边界: " + octree.getBoundary());
+        }
+        return octree;
+    }
+    
+    /**
+     * 处理已被替换的八叉树（调用方需持有writeLock，且新索引已经发布）
+     * 快照模式下八叉树只被快照构建引用，可以立即关闭；
+     * 非快照模式下它本身就是刚被替换的已发布索引，仍在进行的查询可能持有它，交给GC回收而不清空
+     * 
+     * @param octree 旧的八叉树，可为null
+     * @param snapshotOnly 旧八叉树发布时是否处于快照模式
+     */
+    private static void retire(Octree octree, boolean snapshotOnly) {
+        if (octree != null && snapshotOnly) {
             octree.close();
         }
-        worldOctrees.clear();
-        rangeToGate.clear();
     }
     
     /**
-     * 为世界创建八叉树
+     * 按传送门分布批量构建八叉树
      */
-    private Octree createOctreeForWorld(String worldName) {
-        // 创建覆盖整个世界的边界
-        Range3D worldBoundary = new Range3D(
-            -WORLD_SIZE, -256, -WORLD_SIZE,
-            WORLD_SIZE, 320, WORLD_SIZE
-        );
+    private Octree buildOctree(RangeArray entries, long minSize) {
+        return Octree.build(computeRootBounds(entries, minSize),
+            settings.getMaxDepth(), settings.getLeafCapacity(), entries);
+    }
+    
+    /**
+     * 计算包围所有范围的八叉树根节点边界
+     * 
+     * 边界是边长为2的幂、起点按半边长对齐的立方体：各轴同步分割，不会出现Y轴先缩减到1格而停止分割的情况；
+     * 每一层的分割面都落在2的幂的倍数上（如 y=0、y=64），而不是传送门聚集的中心位置。
+     * 
+     * @param ranges 范围列表
+     * @param minSize 最小边长
+     * @return 根节点边界
+     */
+    public static Range3D computeRootBounds(List<Range3D> ranges, long minSize) {
+        RangeArray entries = new RangeArray(ranges.size());
+        for (Range3D range : ranges) {
+            entries.add(range, range);
+        }
+        return computeRootBounds(entries, minSize);
+    }
+    
+    /**
+     * 计算包围范围数组中所有范围的八叉树根节点边界
+     * 
+     * @param entries 范围数组
+     * @param minSize 最小边长
+     * @return 根节点边界
+     */
+    public static Range3D computeRootBounds(RangeArray entries, long minSize) {
+        long minX = 0, minY = 0, minZ = 0, maxX = 0, maxY = 0, maxZ = 0;
+        if (!entries.isEmpty()) {
+            minX = minY = minZ = Long.MAX_VALUE;
+            maxX = maxY = maxZ = Long.MIN_VALUE;
+            for (int i = 0; i < entries.size(); i++) {
+                minX = Math.min(minX, entries.getMinX(i));
+                minY = Math.min(minY, entries.getMinY(i));
+                minZ = Math.min(minZ, entries.getMinZ(i));
+                maxX = Math.max(maxX, entries.getMaxX(i));
+                maxY = Math.max(maxY, entries.getMaxY(i));
+                maxZ = Math.max(maxZ, entries.getMaxZ(i));
+            }
+        }
+        minX -= ROOT_PADDING; minY -= ROOT_PADDING; minZ -= ROOT_PADDING;
+        maxX += ROOT_PADDING; maxY += ROOT_PADDING; maxZ += ROOT_PADDING;
+        
+        long size = MIN_ROOT_SIZE;
+        while (size < minSize || !alignedFits(minX, maxX, size) ||
+               !alignedFits(minY, maxY, size) || !alignedFits(minZ, maxZ, size)) {
+            size <<= 1;
+        }
         
-        return new Octree(worldBoundary, MAX_DEPTH, MAX_ITEMS);
+        long lowX = alignedLow(minX, size);
+        long lowY = alignedLow(minY, size);
+        long lowZ = alignedLow(minZ, size);
+        return new Range3D(
+            clamp(lowX), clamp(lowY), clamp(lowZ),
+            clamp(lowX + size - 1), clamp(lowY + size - 1), clamp(lowZ + size - 1)
+        );
+    }
+    
+    private static long alignedLow(long min, long size) {
+        long half = size / 2;
+        return Math.floorDiv(min, half) * half;
+    }
+    
+    private static boolean alignedFits(long min, long max, long size) {
+        return alignedLow(min, size) + size - 1 >= max;
+    }
+    
+    private static int clamp(long value) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+    }
+    
+    private static String describe(Object value) {
+        return value instanceof Gate ? ((Gate) value).getConfigName() : String.valueOf(value);
     }
     
     /**
      * 为传送门创建空间范围
      */
-    private Range3D createGateRange(Gate gate) {
-        Point3D point1 = new Point3D(
-            (int) gate.getCorner1().getX(),
-            (int) gate.getCorner1().getY(),
-            (int) gate.getCorner1().getZ()
-        );
-        Point3D point2 = new Point3D(
-            (int) gate.getCorner2().getX(),
-            (int) gate.getCorner2().getY(),
-            (int) gate.getCorner2().getZ()
-        );
+    public static Range3D createGateRange(Gate gate) {
+        int x1 = (int) gate.getCorner1().getX(), x2 = (int) gate.getCorner2().getX();
+        int y1 = (int) gate.getCorner1().getY(), y2 = (int) gate.getCorner2().getY();
+        int z1 = (int) gate.getCorner1().getZ(), z2 = (int) gate.getCorner2().getZ();
+        return new Range3D(Math.min(x1, x2), Math.min(y1, y2), Math.min(z1, z2),
+            Math.max(x1, x2), Math.max(y1, y2), Math.max(z1, z2));
+    }
+    
+    /**
+     * 将传送门的空间范围追加到范围数组，不创建中间对象
+     * 
+     * @param entries 目标数组
+     * @param gate 传送门
+     * @param value 关联的值
+     */
+    public static void addGateRange(RangeArray entries, Gate gate, Object value) {
+        int x1 = (int) gate.getCorner1().getX(), x2 = (int) gate.getCorner2().getX();
+        int y1 = (int) gate.getCorner1().getY(), y2 = (int) gate.getCorner2().getY();
+        int z1 = (int) gate.getCorner1().getZ(), z2 = (int) gate.getCorner2().getZ();
+        entries.add(Math.min(x1, x2), Math.min(y1, y2), Math.min(z1, z2),
+            Math.max(x1, x2), Math.max(y1, y2), Math.max(z1, z2), value);
+    }
+    
+    /**
+     * 一个世界已发布的索引及其区块集合
+     */
+    private static final class WorldIndex {
+        private final PointIndex index;
+        private final ChunkOccupancy chunks;
         
-        return new Range3D(point1, point2);
+        private WorldIndex(PointIndex index, ChunkOccupancy chunks) {
+            this.index = index;
+            this.chunks = chunks;
+        }
     }
 }
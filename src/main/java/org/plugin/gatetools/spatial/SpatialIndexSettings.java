@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.spatial;
+
+/**
+ * 空间索引配置
+ *
+ * 不可变的配置快照，由ConfigManager从config.yml构建，重建索引时重新读取。
+ *
+ * @author NSrank, Augment
+ */
+public final class SpatialIndexSettings {
+    public static final int DEFAULT_MAX_DEPTH = 16;
+    public static final int DEFAULT_LEAF_CAPACITY = 10;
+    public static final int DEFAULT_VECTOR_SCAN_MIN_ITEMS = 32;
+
+    private final SpatialIndexManager.Backend backend;
+    private final boolean lockFreeSnapshot;
+    private final int maxDepth;
+    private final int leafCapacity;
+    private final boolean vectorScan;
+    private final int vectorScanMinItems;
+    private final boolean debug;
+
+    public SpatialIndexSettings(SpatialIndexManager.Backend backend, boolean lockFreeSnapshot,
+                                int maxDepth, int leafCapacity, boolean debug) {
+        this(backend, lockFreeSnapshot, maxDepth, leafCapacity, false, DEFAULT_VECTOR_SCAN_MIN_ITEMS, debug);
+    }
+
+    public SpatialIndexSettings(SpatialIndexManager.Backend backend, boolean lockFreeSnapshot,
+                                int maxDepth, int leafCapacity, boolean vectorScan, int vectorScanMinItems,
+                                boolean debug) {
+        this.backend = backend;
+        this.lockFreeSnapshot = lockFreeSnapshot;
+        this.maxDepth = maxDepth;
+        this.leafCapacity = leafCapacity;
+        this.vectorScan = vectorScan;
+        this.vectorScanMinItems = vectorScanMinItems;
+        this.debug = debug;
+    }
+
+    /**
+     * 是否通过发布的不可变索引查询
+     * 区块网格本身就是不可变索引，因此总是通过发布路径查询
+     */
+    public boolean isPublishedIndex() {
+        return backend == SpatialIndexManager.Backend.CHUNK_GRID || lockFreeSnapshot;
+    }
+
+    public SpatialIndexManager.Backend getBackend() {
+        return backend;
+    }
+
+    public boolean isLockFreeSnapshot() {
+        return lockFreeSnapshot;
+    }
+
+    /**
+     * 八叉树最大深度
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * 八叉树叶子节点容量，超过时分割
+     */
+    public int getLeafCapacity() {
+        return leafCapacity;
+    }
+
+    /**
+     * 是否使用向量化叶子扫描（需要jdk.incubator.vector模块）
+     */
+    public boolean isVectorScan() {
+        return vectorScan;
+    }
+
+    /**
+     * 使用向量化扫描的最小项目数
+     */
+    public int getVectorScanMinItems() {
+        return vectorScanMinItems;
+    }
+
+    public boolean isDebug() {
+        return debug;
+    }
+}
@@ -0,0 +1,57 @@
+package org.plugin.gatetools.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 原子文件写入
+ * 先写入同目录下的临时文件并fsync，再重命名覆盖目标文件，
+ * 写入过程中崩溃时目标文件保持为完整的旧版本
+ *
+ * @author NSrank, Augment
+ */
+final class AtomicFiles {
+
+    /**
+     * 文件内容写入器
+     */
+    interface ContentWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * 原子地替换文件内容
+     *
+     * @param target 目标文件
+     * @param writer 内容写入器
+     * @throws IOException 写入或重命名失败（目标文件保持不变）
+     */
+    static void write(File target, ContentWriter writer) throws IOException {
+        File temp = new File(target.getParentFile(), target.getName() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp)) {
+            BufferedOutputStream out = new BufferedOutputStream(fileOut);
+            writer.writeTo(out);
+            out.flush();
+            fileOut.getFD().sync();
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+
+        try {
+            Files.move(temp.toPath(), target.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.plugin.gatetools.storage;
+
+import org.plugin.gatetools.model.Gate;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * 二进制传送门存储
+ *
+ * 文件格式：
+ * <pre>
+ * int    魔数 "GTDB"
+ * int    格式版本
+ * int    记录数
+ * 记录 * N：int 长度 + 记录内容（见GateCodec）
+ * </pre>
+ * 每条记录带长度前缀，单条记录损坏时可以跳过而不影响其余记录；
+ * 跳过了记录或文件不完整时以PartialLoadException返回已读取的部分，由调用方先保留原文件。
+ * 保存时先写临时文件再原子重命名，不会留下写了一半的数据文件。
+ *
+ * @author NSrank, Augment
+ */
+public class BinaryGateStore implements GateStore {
+    public static final String TYPE = "binary";
+
+    static final int MAGIC = 0x47544442; // "GTDB"
+    static final int VERSION = 1;
+
+    private final File file;
+    private final Logger logger;
+
+    public BinaryGateStore(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws PartialLoadException 有记录无法解析或文件不完整，异常中携带已读取的传送门
+     */
+    @Override
+    public List<Gate> load() throws IOException {
+        List<Gate> gates = new ArrayList<>();
+        int skipped = 0;
+        boolean truncated = false;
+        if (!file.exists()) {
+            return gates;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int magic = in.readInt();
+            if (magic != MAGIC) {
+                throw new IOException("Not a gate data file: " + file.getName());
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported gate data version " + version + " in " + file.getName());
+            }
+
+            int count = in.readInt();
+            byte[] buffer = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int length = in.readInt();
+                if (length < 0) {
+                    throw new IOException("Corrupt record length " + length + " in " + file.getName());
+                }
+                if (buffer.length < length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                }
+                in.readFully(buffer, 0, length);
+
+                try {
+                    gates.add(GateCodec.read(new DataInputStream(new ByteArrayInputStream(buffer, 0, length))));
+                } catch (IOException e) {
+                    logger.warning("跳过无法解析的传送门记录 #" + i + ": " + e.getMessage());
+                    skipped++;
+                }
+            }
+        } catch (EOFException e) {
+            logger.warning("传送门数据文件不完整，已读取 " + gates.size() + " 个传送门: " + file.getName());
+            truncated = true;
+        }
+        if (skipped > 0 || truncated) {
+            throw new PartialLoadException("Gate data file " + file.getName() + " is damaged: " +
+                (truncated ? "truncated" : skipped + " unreadable records"), gates);
+        }
+        return gates;
+    }
+
+    @Override
+    public void save(Collection<Gate> gates) throws IOException {
+        ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+        DataOutputStream recordOut = new DataOutputStream(record);
+
+        AtomicFiles.write(file, stream -> {
+            DataOutputStream out = new DataOutputStream(stream);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(gates.size());
+            for (Gate gate : gates) {
+                record.reset();
+                GateCodec.write(recordOut, gate);
+                out.writeInt(record.size());
+                record.writeTo(out);
+            }
+            out.flush();
+        });
+    }
+}
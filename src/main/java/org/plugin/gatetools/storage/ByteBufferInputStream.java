@@ -0,0 +1,41 @@
+package org.plugin.gatetools.storage;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 基于ByteBuffer的输入流，用于直接从内存映射文件中解码记录
+ * 调用方应传入独立的缓冲区视图（duplicate/slice），读取会移动其位置
+ *
+ * @author NSrank, Augment
+ */
+final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+}
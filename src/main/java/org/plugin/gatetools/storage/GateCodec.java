@@ -0,0 +1,137 @@
+package org.plugin.gatetools.storage;
+
+import org.plugin.gatetools.model.Gate;
+import org.plugin.gatetools.model.GateCondition;
+import org.plugin.gatetools.model.Location3D;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 传送门二进制编解码
+ * 单条记录的字段布局，由二进制存储文件和日志文件共用
+ *
+ * @author NSrank, Augment
+ */
+final class GateCodec {
+
+    private GateCodec() {
+    }
+
+    /**
+     * 写入一个传送门记录
+     */
+    static void write(DataOutput out, Gate gate) throws IOException {
+        out.writeUTF(gate.getConfigName());
+        out.writeUTF(gate.getDisplayName());
+        writeLocation(out, gate.getCorner1());
+        writeLocation(out, gate.getCorner2());
+
+        Map<GateCondition.ConditionType, GateCondition> conditions = gate.getConditions();
+        out.writeByte(conditions.size());
+        for (GateCondition condition : conditions.values()) {
+            out.writeUTF(condition.getConditionType().getKey());
+            out.writeUTF(condition.getJudgeType().getKey());
+            out.writeUTF(condition.getCompareOperator() != null ? condition.getCompareOperator().getSymbol() : "");
+            out.writeUTF(condition.getValue());
+        }
+
+        List<UUID> owners = gate.getOwners();
+        out.writeByte(owners.size());
+        for (UUID owner : owners) {
+            out.writeLong(owner.getMostSignificantBits());
+            out.writeLong(owner.getLeastSignificantBits());
+        }
+
+        out.writeBoolean(gate.isLogEnabled());
+    }
+
+    /**
+     * 读取一个传送门记录
+     *
+     * @throws IOException 数据不完整或包含无法识别的条件
+     */
+    static Gate read(DataInput in) throws IOException {
+        String configName = in.readUTF();
+        String displayName = in.readUTF();
+        Location3D corner1 = readLocation(in);
+        Location3D corner2 = readLocation(in);
+        Gate gate = new Gate(configName, displayName, corner1, corner2);
+
+        int conditionCount = in.readUnsignedByte();
+        for (int i = 0; i < conditionCount; i++) {
+            String typeKey = in.readUTF();
+            String judgeKey = in.readUTF();
+            String operatorSymbol = in.readUTF();
+            String value = in.readUTF();
+
+            GateCondition.ConditionType conditionType = GateCondition.ConditionType.fromKey(typeKey);
+            GateCondition.JudgeType judgeType = GateCondition.JudgeType.fromKey(judgeKey);
+            if (conditionType == null || judgeType == null) {
+                throw new IOException("Unknown condition in gate " + configName + ": " + typeKey + "/" + judgeKey);
+            }
+            GateCondition.CompareOperator operator = operatorSymbol.isEmpty()
+                ? null : GateCondition.CompareOperator.fromSymbol(operatorSymbol);
+            gate.addCondition(new GateCondition(conditionType, judgeType, operator, value));
+        }
+
+        int ownerCount = in.readUnsignedByte();
+        List<UUID> owners = new ArrayList<>(ownerCount);
+        for (int i = 0; i < ownerCount; i++) {
+            owners.add(new UUID(in.readLong(), in.readLong()));
+        }
+        gate.setOwners(owners);
+
+        gate.setLogEnabled(in.readBoolean());
+        return gate;
+    }
+
+    /**
+     * 只读取记录开头的名称和两个角点，不解析条件和所有者
+     * 包围盒坐标与SpatialIndexManager.createGateRange相同（坐标截断为整数）
+     *
+     * @param bounds 输出：minX, minY, minZ, maxX, maxY, maxZ
+     * @return 传送门配置名和所在世界 {configName, worldName}
+     */
+    static String[] readGeometry(DataInput in, int[] bounds) throws IOException {
+        String configName = in.readUTF();
+        in.readUTF();
+        String worldName = in.readUTF();
+        int x1 = (int) in.readDouble();
+        int y1 = (int) in.readDouble();
+        int z1 = (int) in.readDouble();
+        in.readFloat();
+        in.readFloat();
+        in.readUTF();
+        int x2 = (int) in.readDouble();
+        int y2 = (int) in.readDouble();
+        int z2 = (int) in.readDouble();
+
+        bounds[0] = Math.min(x1, x2);
+        bounds[1] = Math.min(y1, y2);
+        bounds[2] = Math.min(z1, z2);
+        bounds[3] = Math.max(x1, x2);
+        bounds[4] = Math.max(y1, y2);
+        bounds[5] = Math.max(z1, z2);
+        return new String[] {configName, worldName};
+    }
+
+    private static void writeLocation(DataOutput out, Location3D location) throws IOException {
+        out.writeUTF(location.getWorldName());
+        out.writeDouble(location.getX());
+        out.writeDouble(location.getY());
+        out.writeDouble(location.getZ());
+        out.writeFloat(location.getYaw());
+        out.writeFloat(location.getPitch());
+    }
+
+    private static Location3D readLocation(DataInput in) throws IOException {
+        return new Location3D(in.readUTF(), in.readDouble(), in.readDouble(), in.readDouble(),
+            in.readFloat(), in.readFloat());
+    }
+}
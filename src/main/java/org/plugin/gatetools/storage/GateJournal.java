@@ -0,0 +1,257 @@
+package org.plugin.gatetools.storage;
+
+import org.plugin.gatetools.model.Gate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * 传送门变更日志
+ *
+ * 只追加写入的变更记录，与基础数据文件一起构成完整数据：加载时先读取基础文件，再按顺序重放日志。
+ * 单个传送门的修改只需追加一条记录，压缩时把全部传送门写回基础文件并清空日志。
+ *
+ * 文件格式：
+ * <pre>
+ * int    魔数 "GTJL"
+ * int    格式版本
+ * 条目 * N：byte 操作 + int 长度 + 内容（PUT为GateCodec记录，DELETE为传送门名称）
+ * </pre>
+ * 写入中断导致的不完整尾部条目会在重放时丢弃并截断，不完整的文件头会被清空；内容无法解析的单条记录会被跳过。
+ *
+ * @author NSrank, Augment
+ */
+public class GateJournal {
+    static final int MAGIC = 0x47544A4C; // "GTJL"
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+
+    private final File file;
+    private final Logger logger;
+    private int entryCount;
+
+    public GateJournal(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 获取日志中的条目数（重放或追加后更新）
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * 统计日志中的条目数，只读取条目头，不解码记录内容
+     * 损坏或不完整的尾部不计入
+     *
+     * @return 条目数，日志不存在时为0
+     * @throws IOException 日志文件头无效或读取失败
+     */
+    public int countEntries() throws IOException {
+        if (!file.exists() || file.length() == 0) {
+            return 0;
+        }
+
+        int count = 0;
+        long fileLength = file.length();
+        long position = HEADER_SIZE;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a gate journal file: " + file.getName());
+            }
+            in.readInt();
+            while (true) {
+                int op = in.read();
+                if (op < 0) {
+                    break;
+                }
+                int length = in.readInt();
+                // 文件流的skip可以越过文件末尾，需按文件长度判断条目是否完整
+                if (length < 0 || (op != OP_PUT && op != OP_DELETE) || position + 5 + length > fileLength) {
+                    break;
+                }
+                in.skipNBytes(length);
+                position += 5 + length;
+                count++;
+            }
+        } catch (EOFException e) {
+            // 不完整的尾部条目不计入
+        }
+        return count;
+    }
+
+    /**
+     * 将日志重放到传送门映射上
+     *
+     * @param gates 基础文件中的传送门（名称 -> 传送门），会被原地修改
+     * @return 重放的条目数
+     * @throws IOException 日志文件头无效或读取失败
+     */
+    public int replay(Map<String, Gate> gates) throws IOException {
+        return replay(gates, null);
+    }
+
+    /**
+     * 将日志重放到传送门映射上，并记录被删除的传送门名称
+     * 用于基础文件中的传送门没有全部加载到映射中的情况
+     *
+     * @param gates 传送门映射（名称 -> 传送门），会被原地修改
+     * @param deleted 输出：日志中最终处于删除状态的传送门名称，可为null
+     * @return 重放的条目数
+     * @throws IOException 日志文件头无效或读取失败
+     */
+    public int replay(Map<String, Gate> gates, Set<String> deleted) throws IOException {
+        entryCount = 0;
+        if (!file.exists() || file.length() == 0) {
+            return 0;
+        }
+        // 写入文件头时中断：日志中没有任何记录，清空后下次追加会重新写入文件头
+        if (file.length() < HEADER_SIZE) {
+            logger.warning("传送门变更日志文件头不完整，已清空日志");
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(0);
+            }
+            return 0;
+        }
+
+        long validLength = HEADER_SIZE;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a gate journal file: " + file.getName());
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported gate journal version " + version + " in " + file.getName());
+            }
+
+            byte[] buffer = new byte[256];
+            while (true) {
+                int op = in.read();
+                if (op < 0) {
+                    break;
+                }
+                int length = in.readInt();
+                if (length < 0 || (op != OP_PUT && op != OP_DELETE)) {
+                    logger.warning("传送门变更日志在第 " + entryCount + " 条记录处损坏，忽略后续内容");
+                    break;
+                }
+                if (buffer.length < length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                }
+                in.readFully(buffer, 0, length);
+
+                // 条目带有长度前缀，单条记录无法解析时跳过该条，继续重放后续记录
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(buffer, 0, length));
+                try {
+                    if (op == OP_PUT) {
+                        Gate gate = GateCodec.read(record);
+                        gates.put(gate.getConfigName(), gate);
+                        if (deleted != null) {
+                            deleted.remove(gate.getConfigName());
+                        }
+                    } else {
+                        String name = record.readUTF();
+                        gates.remove(name);
+                        if (deleted != null) {
+                            deleted.add(name);
+                        }
+                    }
+                } catch (IOException e) {
+                    logger.warning("跳过无法解析的传送门变更记录 #" + entryCount + ": " + e.getMessage());
+                }
+                validLength += 5 + length;
+                entryCount++;
+            }
+        } catch (EOFException e) {
+            logger.warning("传送门变更日志末尾不完整，已丢弃最后一条未写完的记录");
+        }
+
+        // 截断不完整的尾部，保证后续追加的记录可以被正确读取
+        if (file.length() > validLength) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            }
+        }
+        return entryCount;
+    }
+
+    /**
+     * 追加变更记录
+     *
+     * @param updated 新增或修改的传送门
+     * @param deleted 已删除的传送门名称
+     * @throws IOException 写入失败
+     */
+    public void append(Collection<Gate> updated, Collection<String> deleted) throws IOException {
+        if (updated.isEmpty() && deleted.isEmpty()) {
+            return;
+        }
+
+        boolean writeHeader = !file.exists() || file.length() == 0;
+        ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+        DataOutputStream recordOut = new DataOutputStream(record);
+
+        try (FileOutputStream fileOut = new FileOutputStream(file, true)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+            if (writeHeader) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+            }
+            for (Gate gate : updated) {
+                record.reset();
+                GateCodec.write(recordOut, gate);
+                writeEntry(out, OP_PUT, record);
+            }
+            for (String name : deleted) {
+                record.reset();
+                recordOut.writeUTF(name);
+                writeEntry(out, OP_DELETE, record);
+            }
+            // 确保记录落盘后才认为保存完成
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        entryCount += updated.size() + deleted.size();
+    }
+
+    private void writeEntry(DataOutputStream out, byte op, ByteArrayOutputStream record) throws IOException {
+        out.writeByte(op);
+        out.writeInt(record.size());
+        record.writeTo(out);
+    }
+
+    /**
+     * 清空日志（基础文件已包含全部数据后调用）
+     *
+     * @throws IOException 删除失败
+     */
+    public void reset() throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Unable to delete gate journal: " + file.getName());
+        }
+        entryCount = 0;
+    }
+}
@@ -0,0 +1,43 @@
+package org.plugin.gatetools.storage;
+
+import org.plugin.gatetools.model.Gate;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 传送门存储接口
+ * 负责传送门数据的整体读取和写入，具体格式由实现决定
+ *
+ * @author NSrank, Augment
+ */
+public interface GateStore {
+
+    /**
+     * 获取存储类型名称（与config.yml中storage.type一致）
+     */
+    String getType();
+
+    /**
+     * 获取数据文件
+     */
+    File getFile();
+
+    /**
+     * 读取全部传送门
+     *
+     * @return 传送门列表，数据文件不存在时返回空列表
+     * @throws IOException 读取失败或文件格式不受支持
+     */
+    List<Gate> load() throws IOException;
+
+    /**
+     * 写入全部传送门，覆盖原有数据
+     *
+     * @param gates 传送门集合
+     * @throws IOException 写入失败
+     */
+    void save(Collection<Gate> gates) throws IOException;
+}
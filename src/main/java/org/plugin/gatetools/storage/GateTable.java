@@ -0,0 +1,251 @@
+package org.plugin.gatetools.storage;
+
+import org.plugin.gatetools.model.Gate;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * 内存映射的传送门记录表
+ *
+ * 数据文件（格式同BinaryGateStore）以只读方式映射到内存，堆上只保留按名称排序的紧凑列：
+ * 名称、世界编号、包围盒（每个传送门6个int）和记录偏移。
+ * 完整的Gate对象只在需要时从映射区解码，条件、所有者等数据不常驻堆内存。
+ * 表在打开后不再改变，之后的修改由调用方在表之外记录。
+ *
+ * @author NSrank, Augment
+ */
+public final class GateTable {
+    /** 空表 */
+    public static final GateTable EMPTY = new GateTable(ByteBuffer.allocate(0), new String[0], new String[0],
+        new int[0], new int[0], new int[0], new int[0]);
+
+    // 名称排序：先不区分大小写比较，相同时再区分大小写，不区分大小写的同一前缀的名称相邻
+    private static final Comparator<String> NAME_ORDER =
+        String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    private final ByteBuffer buffer;
+    private final String[] names;
+    private final String[] worldNames;
+    private final int[] worldIds;
+    // 每个传送门占6个元素：minX, minY, minZ, maxX, maxY, maxZ
+    private final int[] bounds;
+    private final int[] offsets;
+    private final int[] lengths;
+
+    private GateTable(ByteBuffer buffer, String[] names, String[] worldNames, int[] worldIds,
+                      int[] bounds, int[] offsets, int[] lengths) {
+        this.buffer = buffer;
+        this.names = names;
+        this.worldNames = worldNames;
+        this.worldIds = worldIds;
+        this.bounds = bounds;
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    /**
+     * 映射数据文件并建立记录表
+     * 无法解析的记录会被跳过，文件截断时保留已读取的记录
+     *
+     * @param file 二进制数据文件
+     * @param logger 日志记录器
+     * @throws IOException 文件头无效或映射失败
+     */
+    static GateTable open(File file, Logger logger) throws IOException {
+        if (!file.exists()) {
+            return EMPTY;
+        }
+
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Gate data file too large to map: " + file.getName());
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        ByteBuffer in = mapped.duplicate();
+        try {
+            if (in.getInt() != BinaryGateStore.MAGIC) {
+                throw new IOException("Not a gate data file: " + file.getName());
+            }
+            int version = in.getInt();
+            if (version != BinaryGateStore.VERSION) {
+                throw new IOException("Unsupported gate data version " + version + " in " + file.getName());
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Gate data file header is incomplete: " + file.getName());
+        }
+
+        int count = in.remaining() >= 4 ? in.getInt() : 0;
+        List<String> names = new ArrayList<>();
+        List<String> worldNames = new ArrayList<>();
+        Map<String, Integer> worldIdsByName = new HashMap<>();
+        int[] worldIds = new int[Math.max(0, Math.min(count, in.remaining() / 4))];
+        int[] bounds = new int[worldIds.length * 6];
+        int[] offsets = new int[worldIds.length];
+        int[] lengths = new int[worldIds.length];
+        int[] recordBounds = new int[6];
+
+        for (int i = 0; i < count; i++) {
+            if (in.remaining() < 4) {
+                logger.warning("传送门数据文件不完整，已映射 " + names.size() + " 个传送门: " + file.getName());
+                break;
+            }
+            int length = in.getInt();
+            if (length < 0 || length > in.remaining()) {
+                logger.warning("传送门数据文件不完整，已映射 " + names.size() + " 个传送门: " + file.getName());
+                break;
+            }
+            int offset = in.position();
+            in.position(offset + length);
+
+            String[] header;
+            try {
+                header = GateCodec.readGeometry(record(mapped, offset, length), recordBounds);
+            } catch (IOException e) {
+                logger.warning("跳过无法解析的传送门记录 #" + i + ": " + e.getMessage());
+                continue;
+            }
+
+            int record = names.size();
+            if (record == offsets.length) {
+                int capacity = Math.max(16, record * 2);
+                worldIds = Arrays.copyOf(worldIds, capacity);
+                bounds = Arrays.copyOf(bounds, capacity * 6);
+                offsets = Arrays.copyOf(offsets, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            names.add(header[0]);
+            worldIds[record] = worldIdsByName.computeIfAbsent(header[1], name -> {
+                worldNames.add(name);
+                return worldNames.size() - 1;
+            });
+            System.arraycopy(recordBounds, 0, bounds, record * 6, 6);
+            offsets[record] = offset;
+            lengths[record] = length;
+        }
+
+        // 按名称排序，按名称查找时二分查找即可
+        int size = names.size();
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(names::get, NAME_ORDER));
+
+        String[] sortedNames = new String[size];
+        int[] sortedWorldIds = new int[size];
+        int[] sortedBounds = new int[size * 6];
+        int[] sortedOffsets = new int[size];
+        int[] sortedLengths = new int[size];
+        for (int i = 0; i < size; i++) {
+            int from = order[i];
+            sortedNames[i] = names.get(from);
+            sortedWorldIds[i] = worldIds[from];
+            System.arraycopy(bounds, from * 6, sortedBounds, i * 6, 6);
+            sortedOffsets[i] = offsets[from];
+            sortedLengths[i] = lengths[from];
+        }
+        return new GateTable(mapped, sortedNames, worldNames.toArray(new String[0]), sortedWorldIds,
+            sortedBounds, sortedOffsets, sortedLengths);
+    }
+
+    private static DataInputStream record(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset).limit(offset + length);
+        return new DataInputStream(new ByteBufferInputStream(view));
+    }
+
+    /**
+     * 获取记录数
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * 按名称查找记录
+     *
+     * @param configName 传送门配置名
+     * @return 记录下标，不存在则返回-1
+     */
+    public int indexOf(String configName) {
+        int index = Arrays.binarySearch(names, configName, NAME_ORDER);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * 查找第一个名称以指定前缀开头（不区分大小写）的记录
+     * 匹配的记录在表中连续存放，从返回的下标开始遍历到nameStartsWith不成立为止即可
+     *
+     * @param prefix 前缀
+     * @return 记录下标，没有匹配时返回的下标处nameStartsWith不成立（可能等于size()）
+     */
+    public int firstWithPrefix(String prefix) {
+        int low = 0;
+        int high = names.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(names[mid], prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 检查记录的名称是否以指定前缀开头（不区分大小写）
+     */
+    public boolean nameStartsWith(int record, String prefix) {
+        return record < names.length && names[record].regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    public String getName(int record) {
+        return names[record];
+    }
+
+    public String getWorldName(int record) {
+        return worldNames[worldIds[record]];
+    }
+
+    public int getMinX(int record) { return bounds[record * 6]; }
+    public int getMinY(int record) { return bounds[record * 6 + 1]; }
+    public int getMinZ(int record) { return bounds[record * 6 + 2]; }
+    public int getMaxX(int record) { return bounds[record * 6 + 3]; }
+    public int getMaxY(int record) { return bounds[record * 6 + 4]; }
+    public int getMaxZ(int record) { return bounds[record * 6 + 5]; }
+
+    /**
+     * 从映射区解码完整的传送门，每次调用都返回新的对象
+     *
+     * @param record 记录下标
+     * @throws IOException 记录内容无法解析
+     */
+    public Gate materialize(int record) throws IOException {
+        return GateCodec.read(record(buffer, offsets[record], lengths[record]));
+    }
+
+    /**
+     * 获取映射的文件大小（字节），这部分数据由操作系统页缓存管理，不占用堆内存
+     */
+    public long getMappedBytes() {
+        return buffer.capacity();
+    }
+}
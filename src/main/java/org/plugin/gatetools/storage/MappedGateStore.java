@@ -0,0 +1,41 @@
+package org.plugin.gatetools.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Logger;
+
+/**
+ * 内存映射传送门存储
+ *
+ * 与BinaryGateStore使用相同的gates.dat文件格式，两种存储类型可以直接互相切换。
+ * 加载时不创建Gate对象，而是通过openTable()映射数据文件，由调用方按需解码。
+ * 数据文件映射期间调用方不应替换它（部分系统不允许替换已映射的文件），
+ * 运行期间的修改只写入变更日志，写回数据文件在下次打开表之前进行。
+ *
+ * @author NSrank, Augment
+ */
+public class MappedGateStore extends BinaryGateStore {
+    public static final String TYPE = "mmap";
+
+    private final Logger logger;
+
+    public MappedGateStore(File file, Logger logger) {
+        super(file, logger);
+        this.logger = logger;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    /**
+     * 映射数据文件并建立记录表
+     *
+     * @return 记录表，数据文件不存在时为空表
+     * @throws IOException 文件头无效或映射失败
+     */
+    public GateTable openTable() throws IOException {
+        return GateTable.open(getFile(), logger);
+    }
+}
@@ -0,0 +1,28 @@
+package org.plugin.gatetools.storage;
+
+import org.plugin.gatetools.model.Gate;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 数据文件只能部分读取（有记录损坏或文件不完整）
+ * 携带已成功读取的传送门，调用方在用其覆盖数据文件之前必须先保留原文件
+ *
+ * @author NSrank, Augment
+ */
+public class PartialLoadException extends IOException {
+    private final transient List<Gate> loaded;
+
+    public PartialLoadException(String message, List<Gate> loaded) {
+        super(message);
+        this.loaded = loaded;
+    }
+
+    /**
+     * 获取已成功读取的传送门
+     */
+    public List<Gate> getLoaded() {
+        return loaded;
+    }
+}
@@ -0,0 +1,176 @@
+package org.plugin.gatetools.storage;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.plugin.gatetools.model.Gate;
+import org.plugin.gatetools.model.GateCondition;
+import org.plugin.gatetools.model.Location3D;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * YAML传送门存储
+ * 兼容旧版本的data.yml格式，也用于导入/导出
+ *
+ * @author NSrank, Augment
+ */
+public class YamlGateStore implements GateStore {
+    public static final String TYPE = "yaml";
+
+    private final File file;
+    private final Logger logger;
+
+    public YamlGateStore(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public List<Gate> load() throws IOException {
+        List<Gate> gates = new ArrayList<>();
+        if (!file.exists()) {
+            return gates;
+        }
+
+        YamlConfiguration dataConfig = YamlConfiguration.loadConfiguration(file);
+        ConfigurationSection gatesSection = dataConfig.getConfigurationSection("gates");
+        if (gatesSection == null) {
+            return gates;
+        }
+
+        for (String gateName : gatesSection.getKeys(false)) {
+            try {
+                ConfigurationSection gateSection = gatesSection.getConfigurationSection(gateName);
+                if (gateSection == null) continue;
+
+                String displayName = gateSection.getString("display-name", gateName);
+                String corner1Str = gateSection.getString("corner1");
+                String corner2Str = gateSection.getString("corner2");
+
+                if (corner1Str == null || corner2Str == null) {
+                    logger.warning("传送门 " + gateName + " 缺少角点坐标，跳过加载");
+                    continue;
+                }
+
+                Location3D corner1 = Location3D.fromString(corner1Str);
+                Location3D corner2 = Location3D.fromString(corner2Str);
+                Gate gate = new Gate(gateName, displayName, corner1, corner2);
+
+                // 加载条件
+                ConfigurationSection conditionsSection = gateSection.getConfigurationSection("conditions");
+                if (conditionsSection != null) {
+                    for (String conditionKey : conditionsSection.getKeys(false)) {
+                        try {
+                            GateCondition.ConditionType conditionType = GateCondition.ConditionType.fromKey(conditionKey);
+                            if (conditionType == null) continue;
+
+                            ConfigurationSection conditionSection = conditionsSection.getConfigurationSection(conditionKey);
+                            if (conditionSection == null) continue;
+
+                            String judgeTypeStr = conditionSection.getString("judge-type");
+                            String value = conditionSection.getString("value");
+                            String operatorStr = conditionSection.getString("operator");
+
+                            GateCondition.JudgeType judgeType = GateCondition.JudgeType.fromKey(judgeTypeStr);
+                            GateCondition.CompareOperator operator = null;
+                            if (operatorStr != null) {
+                                operator = GateCondition.CompareOperator.fromSymbol(operatorStr);
+                            }
+
+                            if (judgeType != null && value != null) {
+                                GateCondition condition = new GateCondition(conditionType, judgeType, operator, value);
+                                gate.addCondition(condition);
+                            }
+                        } catch (Exception e) {
+                            logger.log(Level.WARNING, "加载传送门 " + gateName + " 的条件时出错", e);
+                        }
+                    }
+                }
+
+                // 加载所有者信息
+                List<String> ownerStrings = gateSection.getStringList("owners");
+                if (ownerStrings != null && !ownerStrings.isEmpty()) {
+                    List<UUID> owners = new ArrayList<>();
+                    for (String ownerString : ownerStrings) {
+                        try {
+                            UUID ownerId = UUID.fromString(ownerString);
+                            owners.add(ownerId);
+                        } catch (IllegalArgumentException e) {
+                            logger.warning("传送门 " + gateName + " 的所有者UUID格式错误: " + ownerString);
+                        }
+                    }
+                    gate.setOwners(owners);
+                }
+
+                // 加载日志功能状态
+                boolean logEnabled = gateSection.getBoolean("log-enabled", false);
+                gate.setLogEnabled(logEnabled);
+
+                gates.add(gate);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "加载传送门 " + gateName + " 时出错", e);
+            }
+        }
+        return gates;
+    }
+
+    @Override
+    public void save(Collection<Gate> gates) throws IOException {
+        YamlConfiguration dataConfig = new YamlConfiguration();
+
+        for (Gate gate : gates) {
+            String path = "gates." + gate.getConfigName();
+            dataConfig.set(path + ".display-name", gate.getDisplayName());
+            dataConfig.set(path + ".corner1", gate.getCorner1().toString());
+            dataConfig.set(path + ".corner2", gate.getCorner2().toString());
+
+            // 保存条件
+            Map<GateCondition.ConditionType, GateCondition> conditions = gate.getConditions();
+            for (Map.Entry<GateCondition.ConditionType, GateCondition> entry : conditions.entrySet()) {
+                GateCondition condition = entry.getValue();
+                String conditionPath = path + ".conditions." + condition.getConditionType().getKey();
+
+                dataConfig.set(conditionPath + ".judge-type", condition.getJudgeType().getKey());
+                dataConfig.set(conditionPath + ".value", condition.getValue());
+                if (condition.getCompareOperator() != null) {
+                    dataConfig.set(conditionPath + ".operator", condition.getCompareOperator().getSymbol());
+                }
+            }
+
+            // 保存所有者信息
+            List<UUID> owners = gate.getOwners();
+            if (!owners.isEmpty()) {
+                List<String> ownerStrings = new ArrayList<>();
+                for (UUID ownerId : owners) {
+                    ownerStrings.add(ownerId.toString());
+                }
+                dataConfig.set(path + ".owners", ownerStrings);
+            }
+
+            // 保存日志功能状态
+            dataConfig.set(path + ".log-enabled", gate.isLogEnabled());
+        }
+
+        byte[] content = dataConfig.saveToString().getBytes(StandardCharsets.UTF_8);
+        AtomicFiles.write(file, out -> out.write(content));
+    }
+}
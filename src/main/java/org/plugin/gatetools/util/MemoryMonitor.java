@@ -163,7 +163,7 @@ public class MemoryMonitor {
         try {
             GateManager gateManager = plugin.getGateManager();
             SpatialIndexManager spatialManager = gateManager.getSpatialIndexManager();
-            int gateCount = gateManager.getAllGates().size();
+            int gateCount = gateManager.getGateCount();
             
             if (plugin.getConfigManager().isDebugEnabled()) {
                 plugin.getLogger().info(String.format(
@@ -232,15 +232,14 @@ public class MemoryMonitor {
             // 统计传送门数据内存
             GateManager gateManager = plugin.getGateManager();
             if (gateManager != null) {
-                int gateCount = gateManager.getAllGates().size();
-                // 估算每个传送门约占用 2KB 内存
-                memoryUsage += gateCount * 2048;
+                // 估算每个常驻的传送门约占用 2KB 内存（mmap存储下只有缓存和修改过的传送门常驻）
+                memoryUsage += (long) gateManager.getResidentGateCount() * 2048;
 
                 // 统计空间索引内存
                 SpatialIndexManager spatialManager = gateManager.getSpatialIndexManager();
                 if (spatialManager != null) {
-                    // 估算空间索引内存使用（基于传送门数量）
-                    memoryUsage += gateCount * 1024; // 每个传送门的索引约占用 1KB
+                    // 按索引实际分配的原始类型数组估算，mmap存储下索引只保存包围盒和名称引用
+                    memoryUsage += spatialManager.estimateMemoryUsage();
                 }
             }
 
@@ -276,14 +275,9 @@ public class MemoryMonitor {
             // 清理空间索引缓存
             GateManager gateManager = plugin.getGateManager();
             if (gateManager != null) {
-                SpatialIndexManager spatialManager = gateManager.getSpatialIndexManager();
-                if (spatialManager != null) {
-                    // 重建空间索引以清理碎片
-                    spatialManager.clear();
-                    for (var gate : gateManager.getAllGates().values()) {
-                        spatialManager.addGate(gate);
-                    }
-                }
+                // 重建空间索引以清理碎片
+                // 索引的增删都在主线程进行，重建也需在主线程执行，避免覆盖复制传送门与替换索引之间的修改
+                plugin.getServer().getScheduler().runTask(plugin, gateManager::rebuildIndex);
             }
 
             // 执行垃圾回收
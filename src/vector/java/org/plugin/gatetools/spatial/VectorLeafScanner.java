@@ -0,0 +1,70 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2024 NSrank, Augment
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.plugin.gatetools.spatial;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 向量化叶子扫描
+ *
+ * 每次比较一整个向量宽度的范围（AVX2下为8个），六个轴的比较结果合并为一个掩码后取第一个命中。
+ * 只能通过LeafScan在孵化模块可用时加载，不要在其他类中直接引用。
+ *
+ * @author NSrank, Augment
+ */
+final class VectorLeafScanner implements LeafScanner {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public int firstContaining(int[] minX, int[] minY, int[] minZ, int[] maxX, int[] maxY, int[] maxZ,
+                               int from, int to, int x, int y, int z) {
+        int i = from;
+        int upper = from + SPECIES.loopBound(to - from);
+        for (; i < upper; i += SPECIES.length()) {
+            VectorMask<Integer> mask = IntVector.fromArray(SPECIES, minX, i).compare(VectorOperators.LE, x)
+                .and(IntVector.fromArray(SPECIES, maxX, i).compare(VectorOperators.GE, x))
+                .and(IntVector.fromArray(SPECIES, minY, i).compare(VectorOperators.LE, y))
+                .and(IntVector.fromArray(SPECIES, maxY, i).compare(VectorOperators.GE, y))
+                .and(IntVector.fromArray(SPECIES, minZ, i).compare(VectorOperators.LE, z))
+                .and(IntVector.fromArray(SPECIES, maxZ, i).compare(VectorOperators.GE, z));
+            if (mask.anyTrue()) {
+                return i + mask.firstTrue();
+            }
+        }
+
+        // 不足一个向量宽度的尾部
+        for (; i < to; i++) {
+            if (x >= minX[i] && x <= maxX[i] &&
+                y >= minY[i] && y <= maxY[i] &&
+                z >= minZ[i] && z <= maxZ[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}